@@ -3,11 +3,13 @@ package ai.carmatch;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
 public class CarMatchAiApplication {
 
 	public static void main(String[] args) {
@@ -1,7 +1,9 @@
 package ai.carmatch.config;
 
 import ai.carmatch.service.UserService;
+import ai.carmatch.security.EmailPasswordAuthenticationProvider;
 import ai.carmatch.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +39,9 @@ public class SecurityConfig {
     
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    
+    @Autowired
+    private EmailPasswordAuthenticationProvider emailPasswordAuthenticationProvider;
 
     
     @Bean
@@ -57,22 +62,27 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(authz -> authz
+                // Streamed responses finish on an async dispatch of an already authorized request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints
                 .requestMatchers("/api/users/register", "/api/users/login", "/api/users/check-username", "/api/health", "/api/info").permitAll()
+                // Full catalog exports are for authenticated consumers only
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/cars/export").authenticated()
                 // Car public read endpoints
-                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/cars", "/api/cars/*").permitAll()
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/cars", "/api/cars/*", "/api/cars/*/similar").permitAll()
                 // Protected endpoints
                 .requestMatchers("/api/users/**").authenticated()
                 .requestMatchers(org.springframework.http.HttpMethod.POST, "/api/cars/**").authenticated()
                 .requestMatchers(org.springframework.http.HttpMethod.PUT, "/api/cars/**").authenticated()
                 .requestMatchers(org.springframework.http.HttpMethod.DELETE, "/api/cars/**").authenticated()
-                .requestMatchers("/api/recommend").authenticated()
+                .requestMatchers("/api/recommend", "/api/recommend/**").authenticated()
                 .anyRequest().permitAll()
             )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authenticationProvider(authenticationProvider())
+            .authenticationProvider(emailPasswordAuthenticationProvider)
             .httpBasic(httpBasic -> {});
         http.addFilterBefore(jwtAuthenticationFilter, org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter.class);
         
@@ -85,6 +95,7 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "ETag", "X-Catalog-Version"));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
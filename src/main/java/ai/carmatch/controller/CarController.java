@@ -1,70 +1,325 @@
 package ai.carmatch.controller;
 
+import ai.carmatch.dto.CarImportResult;
+import ai.carmatch.dto.CarPageCursor;
+import ai.carmatch.dto.CarSearchRequest;
 import ai.carmatch.model.Car;
-import ai.carmatch.repository.CarRepository;
+import ai.carmatch.repository.CarSortField;
+import ai.carmatch.service.CarDataFormat;
+import ai.carmatch.service.CarExportService;
+import ai.carmatch.service.CarImportService;
+import ai.carmatch.service.CarSearchService;
+import ai.carmatch.service.CarService;
+import ai.carmatch.service.CatalogResponseCache;
+import ai.carmatch.service.SimilarCarIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.List;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/cars")
 public class CarController {
 
-    private final CarRepository carRepository;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
 
-    public CarController(CarRepository carRepository) {
-        this.carRepository = carRepository;
+    private final CarService carService;
+    private final SimilarCarIndex similarCarIndex;
+    private final CarSearchService carSearchService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CarImportService carImportService;
+    private final CarExportService carExportService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cars.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${app.cars.max-limit:500}")
+    private int maxLimit;
+
+    // How long clients and shared caches may reuse a public catalog response without revalidating
+    @Value("${app.cars.http-cache.max-age:0s}")
+    private Duration cacheMaxAge;
+
+    @Value("${app.similar-cars.default-k:10}")
+    private int defaultK;
+
+    @Value("${app.similar-cars.max-k:100}")
+    private int maxK;
+
+    @Value("${app.car-search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.car-search.max-page-size:100}")
+    private int maxPageSize;
+
+    public CarController(CarService carService, SimilarCarIndex similarCarIndex,
+                         CarSearchService carSearchService, CatalogResponseCache catalogResponseCache,
+                         CarImportService carImportService, CarExportService carExportService,
+                         ObjectMapper objectMapper) {
+        this.carService = carService;
+        this.similarCarIndex = similarCarIndex;
+        this.carSearchService = carSearchService;
+        this.catalogResponseCache = catalogResponseCache;
+        this.carImportService = carImportService;
+        this.carExportService = carExportService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * One page of the catalog, sorted by id or by another column with id as the tie-breaker
+     * GET /api/cars?sort={id|price|year|horsePower|fuelConsumption}[,desc]&limit={k}&cursor={token}
+     * The next page cursor, if any, is returned in the X-Next-Cursor header.
+     * Responses carry an ETag derived from the catalog version; a matching If-None-Match gets a 304.
+     */
     @GetMapping
-    public ResponseEntity<List<Car>> getAllCars() {
-        List<Car> cars = carRepository.findAll();
-        return ResponseEntity.ok(cars);
+    public ResponseEntity<?> getAllCars(@RequestParam(defaultValue = "id") String sort,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String[] sortParts = sort.split(",", 2);
+        CarSortField field = CarSortField.fromProperty(sortParts[0].trim());
+        String direction = sortParts.length > 1 ? sortParts[1].trim() : "asc";
+        if (field == null || !(direction.equalsIgnoreCase("asc") || direction.equalsIgnoreCase("desc"))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Sort must be one of id, price, year, horsePower, fuelConsumption, optionally followed by ,asc or ,desc");
+            return ResponseEntity.badRequest().body(error);
+        }
+        boolean descending = direction.equalsIgnoreCase("desc");
+
+        int pageSize = limit != null ? limit : defaultLimit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Limit must be between 1 and " + maxLimit);
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        CarPageCursor after;
+        try {
+            after = CarPageCursor.decode(cursor);
+            if (after != null && (after.sort() != field || after.descending() != descending)) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort");
+            }
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid cursor");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = catalogETag(gzip);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return encoded(catalogResponseCache.page(field, descending, after, pageSize), gzip, etag);
+    }
+
+    /**
+     * Faceted search: one page of matching cars plus per-value counts for brand, fuel type,
+     * drivetrain, color and compactness
+     * GET /api/cars/search?brand={b}&fuelType={f}&drivetrainType={d}&color={c}&compact={true|false}
+     *     &minPrice=&maxPrice=&minYear=&maxYear=&minHorsePower=&maxHorsePower=
+     *     &minFuelConsumption=&maxFuelConsumption=&page={n}&size={k}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCars(@ModelAttribute CarSearchRequest request,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(required = false) Integer size) {
+        int pageSize = size != null ? size : defaultPageSize;
+        if (page < 0 || pageSize < 1 || pageSize > maxPageSize) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "page must not be negative and size must be between 1 and " + maxPageSize);
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.ok().cacheControl(publicCacheControl()).body(carSearchService.search(request, page, pageSize));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Car> getCarById(@PathVariable Long id) {
-        return carRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getCarById(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = catalogETag(gzip);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return catalogResponseCache.car(id)
+                .map(response -> encoded(response, gzip, etag))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cars most similar to the given one by price, power, consumption, year, size, fuel type and drivetrain
+     * GET /api/cars/{id}/similar?k={k}
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarCars(@PathVariable Long id, @RequestParam(required = false) Integer k) {
+        int count = k != null ? k : defaultK;
+        if (count < 1 || count > maxK) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "k must be between 1 and " + maxK);
+            return ResponseEntity.badRequest().body(error);
+        }
+        return similarCarIndex.findSimilar(id, count)
+                .<ResponseEntity<?>>map(similar -> ResponseEntity.ok().cacheControl(publicCacheControl()).body(similar))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/create")
     public ResponseEntity<Car> createCar(@RequestBody Car car) {
-        Car saved = carRepository.save(car);
+        Car saved = carService.createCar(car);
         return ResponseEntity.created(URI.create("/api/cars/create/" + saved.getId())).body(saved);
     }
 
+    /**
+     * Bulk import of a CSV (text/csv, with a header row) or NDJSON (application/x-ndjson) body
+     * POST /api/cars/import?mode={insert|upsert}
+     * Invalid rows are skipped and reported; the valid ones are committed together.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importCars(@RequestParam(defaultValue = "insert") String mode,
+                                       @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                       InputStream body) throws IOException {
+        if (!(mode.equalsIgnoreCase("insert") || mode.equalsIgnoreCase("upsert"))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Mode must be insert or upsert");
+            return ResponseEntity.badRequest().body(error);
+        }
+        CarDataFormat format = contentType.isCompatibleWith(CarDataFormat.CSV.mediaType())
+                ? CarDataFormat.CSV
+                : CarDataFormat.NDJSON;
+        try {
+            CarImportResult result = carImportService.importCars(body, format, mode.equalsIgnoreCase("upsert"));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Stream the whole catalog, or only what changed after a catalog version
+     * GET /api/cars/export?format={csv|ndjson}&since={version}
+     * Incremental exports end with one row per deleted car, flagged deleted. The X-Catalog-Version
+     * header is the version to pass as {@code since} next time to pick up later changes.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCars(@RequestParam(defaultValue = "ndjson") String format,
+                                                            @RequestParam(required = false) Long since) {
+        CarDataFormat dataFormat = CarDataFormat.fromName(format);
+        if (dataFormat == null) {
+            return errorStream("Format must be csv or ndjson");
+        }
+        if (since != null && since < 0) {
+            return errorStream("since must not be negative");
+        }
+        // Read before streaming, so the export holds at least everything up to this version
+        long version = carExportService.committedVersion();
+        StreamingResponseBody body = out -> carExportService.export(dataFormat, since, out);
+        return ResponseEntity.ok()
+                .contentType(dataFormat.mediaType())
+                .header(CATALOG_VERSION_HEADER, Long.toString(version))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cars." + dataFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
     @PutMapping("/edit/{id}")
     public ResponseEntity<Car> updateCar(@PathVariable Long id, @RequestBody Car update) {
-        return carRepository.findById(id)
-                .map(existing -> {
-                    existing.setBrand(update.getBrand());
-                    existing.setModel(update.getModel());
-                    existing.setYear(update.getYear());
-                    existing.setPrice(update.getPrice());
-                    existing.setHorsePower(update.getHorsePower());
-                    existing.setFuelConsumption(update.getFuelConsumption());
-                    existing.setFuelType(update.getFuelType());
-                    existing.setCompact(update.isCompact());
-                    existing.setDrivetrainType(update.getDrivetrainType());
-                    existing.setColor(update.getColor());
-                    Car saved = carRepository.save(existing);
-                    return ResponseEntity.ok(saved);
-                })
+        return carService.updateCar(id, update)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCar(@PathVariable Long id) {
-        if (!carRepository.existsById(id)) {
+        if (!carService.deleteCar(id)) {
             return ResponseEntity.notFound().build();
         }
-        carRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
-}
 
+    /**
+     * Public catalog reads may be stored by any cache; with the default max age of zero they are
+     * revalidated on every use, which the ETag makes cheap
+     */
+    private CacheControl publicCacheControl() {
+        return CacheControl.maxAge(cacheMaxAge).cachePublic().mustRevalidate();
+    }
+
+    /**
+     * Strong ETag of catalog responses: the catalog version, qualified by the content coding
+     * because gzipped and identity bodies are different bytes. Cached responses always carry a
+     * gzip body, so the coding served is known before anything is loaded.
+     */
+    private String catalogETag(boolean gzip) {
+        return ETags.strong(catalogResponseCache.version() + (gzip ? "-gzip" : ""));
+    }
 
+    private ResponseEntity<StreamingResponseBody> errorStream(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(error);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json));
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(publicCacheControl())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    /**
+     * Cached response bytes, gzipped when {@code gzip} is set
+     */
+    private ResponseEntity<byte[]> encoded(CatalogResponseCache.EncodedResponse response, boolean gzip, String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(publicCacheControl())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (response.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, response.nextCursor());
+        }
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                // "q=0" means the coding is not acceptable
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
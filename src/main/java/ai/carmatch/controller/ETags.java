@@ -0,0 +1,40 @@
+package ai.carmatch.controller;
+
+/**
+ * Entity tag helpers for conditional GETs
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Strong entity tag for the given opaque value
+     */
+    static String strong(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the current entity tag, using the weak comparison
+     * the header calls for; a null header never matches
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
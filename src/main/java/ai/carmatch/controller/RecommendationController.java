@@ -1,16 +1,34 @@
 package ai.carmatch.controller;
 
+import ai.carmatch.dto.BatchRecommendationRequest;
+import ai.carmatch.dto.RecommendationCursor;
+import ai.carmatch.dto.RecommendationPage;
 import ai.carmatch.dto.RecommendationResult;
+import ai.carmatch.dto.SavedPreferences;
+import ai.carmatch.model.User;
 import ai.carmatch.model.UserPreferences;
 import ai.carmatch.service.RecommendationService;
 import ai.carmatch.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -21,22 +39,65 @@ import java.util.Map;
 @CrossOrigin(origins = "*") // Allow CORS for frontend integration
 public class RecommendationController {
     
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    // Rows written between flushes of a streamed response; the first row is always flushed
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+    
+    // Recommendations are per user: only the client may store them, and it must revalidate
+    private static final CacheControl PRIVATE_REVALIDATE = CacheControl.noCache().cachePrivate();
+    
     private final RecommendationService recommendationService;
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${app.recommendations.default-limit:5}")
+    private int defaultLimit;
+    
+    @Value("${app.recommendations.max-limit:50}")
+    private int maxLimit;
+    
+    @Value("${app.recommendations.max-batch-size:1000}")
+    private int maxBatchSize;
     
     /**
      * Get car recommendations based on user's saved preferences
-     * GET /api/recommend/my-preferences
+     * GET /api/recommend?limit={k}&cursor={token}&compact={true|false}
+     * The next page cursor, if any, is returned in the X-Next-Cursor header.
+     * Compact mode returns stable reason codes instead of English explanations.
+     * Responses carry an ETag derived from the user, their preference revision and the catalog
+     * version; a matching If-None-Match gets a 304 without scoring anything.
      */
     @GetMapping("/recommend")
-    public ResponseEntity<?> getRecommendationsFromUserPreferences(Authentication authentication) {
+    public ResponseEntity<?> getRecommendationsFromUserPreferences(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean compact,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
+        int pageSize = limit != null ? limit : defaultLimit;
+        if (pageSize < 1 || pageSize > maxLimit) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Limit must be between 1 and " + maxLimit);
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        RecommendationCursor after;
+        try {
+            after = RecommendationCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid cursor");
+            return ResponseEntity.badRequest().body(error);
+        }
+        
         try {
             String username = authentication.getName();
             log.info("Getting recommendations for user's saved preferences: {}", username);
             
             // Get user's preferences
-            var userProfile = userService.getUserProfile(username);
-            UserPreferences preferences = userProfile.getPreferences();
+            SavedPreferences saved = userService.getSavedPreferences(username);
+            UserPreferences preferences = saved.preferences();
             
             if (preferences == null) {
                 Map<String, String> error = new HashMap<>();
@@ -44,15 +105,26 @@ public class RecommendationController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            List<RecommendationResult> recommendations = recommendationService.getRecommendations(preferences);
+            // Read the catalog version before scoring, so the tag is never newer than the body
+            String etag = ETags.strong(saved.userId() + "." + saved.revision() + "." + recommendationService.catalogVersion());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(PRIVATE_REVALIDATE).build();
+            }
+            
+            RecommendationPage page = recommendationService.getRecommendations(preferences, pageSize, after, compact);
+            List<RecommendationResult> recommendations = page.getResults();
             
             if (recommendations.isEmpty()) {
                 log.warn("No cars found matching the user's preferences");
-                return ResponseEntity.ok(recommendations);
+                return ResponseEntity.ok().eTag(etag).cacheControl(PRIVATE_REVALIDATE).body(recommendations);
             }
             
             log.info("Returning {} recommendations for user: {}", recommendations.size(), username);
-            return ResponseEntity.ok(recommendations);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).cacheControl(PRIVATE_REVALIDATE);
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(recommendations);
             
         } catch (IllegalArgumentException e) {
             log.warn("User not found: {}", e.getMessage());
@@ -68,6 +140,131 @@ public class RecommendationController {
         }
     }
     
+    /**
+     * Stream every car matching the user's saved preferences, best first
+     * GET /api/recommend/stream?compact={true|false}
+     * Responds with application/x-ndjson, one recommendation per line; rows are written
+     * as they are ranked, so the first one arrives before the full list is ordered
+     */
+    @GetMapping("/recommend/stream")
+    public ResponseEntity<StreamingResponseBody> streamRecommendations(
+            @RequestParam(defaultValue = "false") boolean compact,
+            Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            log.info("Streaming recommendations for user's saved preferences: {}", username);
+            
+            UserPreferences preferences = userService.getSavedPreferences(username).preferences();
+            if (preferences == null) {
+                return errorStream(HttpStatus.BAD_REQUEST, "No preferences found. Please set your preferences first.");
+            }
+            
+            Iterator<RecommendationResult> results = recommendationService.streamRecommendations(preferences, compact);
+            ObjectWriter rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            StreamingResponseBody body = out -> {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                int written = 0;
+                while (results.hasNext()) {
+                    rowWriter.writeValue(generator, results.next());
+                    generator.writeRaw('\n');
+                    if (++written % STREAM_FLUSH_INTERVAL == 1) {
+                        generator.flush();
+                    }
+                }
+                generator.close();
+                log.info("Streamed {} recommendations for user: {}", written, username);
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("User not found: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+            
+        } catch (Exception e) {
+            log.error("Error streaming recommendations from user preferences", e);
+            return errorStream(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate recommendations");
+        }
+    }
+    
+    /**
+     * Get car recommendations for many preference profiles in one catalog pass
+     * POST /api/recommend/batch
+     * Accepts either explicit profiles or user IDs; results are returned in input order,
+     * with an empty list for users that have no saved preferences.
+     * User IDs read other users' saved preferences, so that mode is limited to admins.
+     */
+    @PostMapping("/recommend/batch")
+    public ResponseEntity<?> getBatchRecommendations(@Valid @RequestBody BatchRecommendationRequest request,
+                                                     Authentication authentication) {
+        boolean hasProfiles = request.getProfiles() != null && !request.getProfiles().isEmpty();
+        boolean hasUserIds = request.getUserIds() != null && !request.getUserIds().isEmpty();
+        int size = hasProfiles ? request.getProfiles().size() : hasUserIds ? request.getUserIds().size() : 0;
+        int pageSize = request.getLimit() != null ? request.getLimit() : defaultLimit;
+        boolean compact = Boolean.TRUE.equals(request.getCompact());
+        
+        String problem = null;
+        if (hasProfiles == hasUserIds) {
+            problem = "Provide either profiles or userIds";
+        } else if (hasProfiles ? request.getProfiles().contains(null) : request.getUserIds().contains(null)) {
+            problem = hasProfiles ? "Profiles must not contain null entries" : "User IDs must not contain null entries";
+        } else if (size > maxBatchSize) {
+            problem = "Batch size must not exceed " + maxBatchSize;
+        } else if (pageSize < 1 || pageSize > maxLimit) {
+            problem = "Limit must be between 1 and " + maxLimit;
+        }
+        if (problem != null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", problem);
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (hasUserIds && authentication.getAuthorities().stream()
+                .noneMatch(authority -> User.ROLE_ADMIN.equals(authority.getAuthority()))) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Only admins may request recommendations by user ID");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        
+        try {
+            log.info("Getting batch recommendations for {} profiles", size);
+            
+            if (hasProfiles) {
+                return ResponseEntity.ok(recommendationService.getBatchRecommendations(request.getProfiles(), pageSize, compact));
+            }
+            
+            // Score every distinct user with preferences once, then fan results back out in input order
+            Map<Long, UserPreferences> preferencesByUser = userService.getPreferencesByUserIds(request.getUserIds());
+            List<Long> scoredUsers = new ArrayList<>(preferencesByUser.keySet());
+            List<List<RecommendationResult>> scored = recommendationService.getBatchRecommendations(
+                    scoredUsers.stream().map(preferencesByUser::get).toList(), pageSize, compact);
+            Map<Long, List<RecommendationResult>> resultsByUser = new HashMap<>();
+            for (int i = 0; i < scoredUsers.size(); i++) {
+                resultsByUser.put(scoredUsers.get(i), scored.get(i));
+            }
+            return ResponseEntity.ok(request.getUserIds().stream()
+                    .map(userId -> resultsByUser.getOrDefault(userId, List.of()))
+                    .toList());
+            
+        } catch (Exception e) {
+            log.error("Error generating batch recommendations", e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to generate recommendations");
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    private ResponseEntity<StreamingResponseBody> errorStream(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(error);
+        } catch (Exception e) {
+            return ResponseEntity.status(status).build();
+        }
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json));
+    }
+    
     /**
      * Health check endpoint
      * GET /api/health
@@ -92,7 +289,7 @@ public class RecommendationController {
         info.put("name", "CarMatchAI");
         info.put("description", "AI-powered car recommendation service");
         info.put("version", "1.0.0");
-        info.put("features", "Rule-based recommendation engine with Redis caching");
+        info.put("features", "Rule-based recommendation engine with in-memory Caffeine caching");
         
         return ResponseEntity.ok(info);
     }
@@ -6,20 +6,24 @@ import ai.carmatch.dto.UserRegistrationRequest;
 import ai.carmatch.dto.UserPreferencesUpdateRequest;
 import ai.carmatch.model.User;
 import ai.carmatch.service.UserService;
+import ai.carmatch.security.EmailPasswordAuthenticationProvider;
 import ai.carmatch.security.JwtService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -29,7 +33,7 @@ import java.util.Map;
 public class UserController {
     
     private final UserService userService;
-    private final AuthenticationManager authenticationManager;
+    private final EmailPasswordAuthenticationProvider emailPasswordAuthenticationProvider;
     private final JwtService jwtService;
     
     /**
@@ -63,54 +67,55 @@ public class UserController {
         }
     }
 
+    /**
+     * Log in with email and password; the token is returned in the AUTH_TOKEN cookie
+     * POST /api/users/login
+     * The password check runs off the request thread; when too many are queued the response is 503.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody UserLoginRequest request) {
-        try {
-            log.info("Login attempt for email: {}", request.getEmail());
-
-            // Load user by email, but Spring Security authenticates by username
-            User user = userService.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
-
-            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    user.getUsername(), request.getPassword());
-            authenticationManager.authenticate(authToken);
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody UserLoginRequest request) {
+        log.info("Login attempt for email: {}", request.getEmail());
+        return emailPasswordAuthenticationProvider.authenticateAsync(request.getEmail(), request.getPassword())
+                .<ResponseEntity<?>>thenApply(authentication -> loginResponse((User) authentication.getPrincipal()))
+                .exceptionally(this::loginFailure);
+    }
 
-            UserDetails userDetails = userService.loadUserByUsername(user.getUsername());
-            String jwt = jwtService.generateToken(userDetails);
+    private ResponseEntity<?> loginResponse(User user) {
+        String jwt = jwtService.generateToken(user);
 
-            jakarta.servlet.http.Cookie cookie = new jakarta.servlet.http.Cookie("AUTH_TOKEN", jwt);
-            cookie.setHttpOnly(true);
-            cookie.setPath("/");
-            cookie.setMaxAge(jwtService.getExpirationSeconds());
-            // For dev over HTTP you may want this false; set to true when using HTTPS
-            cookie.setSecure(false);
+        org.springframework.http.ResponseCookie responseCookie = org.springframework.http.ResponseCookie
+                .from("AUTH_TOKEN", jwt)
+                .httpOnly(true)
+                // For dev over HTTP you may want this false; set to true when using HTTPS
+                .secure(false)
+                .path("/")
+                .maxAge(jwtService.getExpirationSeconds())
+                .sameSite("Lax")
+                .build();
 
-            org.springframework.http.ResponseCookie responseCookie = org.springframework.http.ResponseCookie
-                    .from("AUTH_TOKEN", jwt)
-                    .httpOnly(true)
-                    .secure(false)
-                    .path("/")
-                    .maxAge(jwtService.getExpirationSeconds())
-                    .sameSite("Lax")
-                    .build();
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Login successful");
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Login successful");
+        return ResponseEntity.ok()
+                .header("Set-Cookie", responseCookie.toString())
+                .body(response);
+    }
 
-            return ResponseEntity.ok()
-                    .header("Set-Cookie", responseCookie.toString())
-                    .body(response);
-        } catch (IllegalArgumentException e) {
-            Map<String, String> error = new HashMap<>();
+    private ResponseEntity<?> loginFailure(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        Map<String, String> error = new HashMap<>();
+        if (cause instanceof AuthenticationException) {
             error.put("error", "Invalid email or password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
-        } catch (Exception e) {
-            log.error("Error during login", e);
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Login failed");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
+        if (cause instanceof RejectedExecutionException) {
+            log.warn("Login rejected, too many password checks queued");
+            error.put("error", "Too many login attempts. Please try again shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+        }
+        log.error("Error during login", cause);
+        error.put("error", "Login failed");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
     
     /**
@@ -309,6 +314,36 @@ public class UserController {
         }
     }
     
+    /**
+     * Enable or disable another user's account; admins only.
+     * Tokens of a disabled account stop authenticating on this node once the change commits,
+     * and on other nodes within the account status cache expiry
+     * PUT /api/users/{username}/enabled?enabled={true|false}
+     */
+    @PutMapping("/{username}/enabled")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setUserEnabled(@PathVariable String username, @RequestParam boolean enabled) {
+        try {
+            userService.setUserEnabled(username, enabled);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("username", username);
+            response.put("enabled", enabled);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Changing account status failed: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+            
+        } catch (Exception e) {
+            log.error("Error changing account status", e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to change account status");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+    
     /**
      * Check if username is available
      * GET /api/users/check-username?username={username}
@@ -0,0 +1,32 @@
+package ai.carmatch.dto;
+
+import ai.carmatch.model.UserPreferences;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRecommendationRequest {
+
+    /**
+     * Preference profiles to score; mutually exclusive with userIds
+     */
+    private List<@Valid UserPreferences> profiles;
+
+    /**
+     * Users whose saved preferences should be scored; mutually exclusive with profiles
+     */
+    private List<Long> userIds;
+
+    private Integer limit;
+
+    /**
+     * Return stable reason codes instead of English explanations
+     */
+    private Boolean compact;
+}
@@ -0,0 +1,29 @@
+package ai.carmatch.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of a catalog export: a car as of the catalog version that last changed it, or,
+ * in incremental exports, a deleted car with only its id and the deleting version
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CarExportRow(
+        Long id,
+        String brand,
+        String model,
+        Integer year,
+        Double price,
+        Integer horsePower,
+        Double fuelConsumption,
+        String fuelType,
+        String drivetrainType,
+        String color,
+        Boolean compact,
+        long catalogVersion,
+        boolean deleted
+) {
+
+    public static CarExportRow deletion(long id, long catalogVersion) {
+        return new CarExportRow(id, null, null, null, null, null, null, null, null, null, null, catalogVersion, true);
+    }
+}
@@ -0,0 +1,32 @@
+package ai.carmatch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportResult {
+    private long inserted;
+    private long updated;
+    private long failed;
+
+    /**
+     * Catalog version the import committed at, or null when it changed nothing
+     */
+    private Long catalogVersion;
+
+    /**
+     * Rejected rows, up to the configured limit; {@code failed} counts all of them
+     */
+    private List<RowError> errors;
+
+    /**
+     * Why a row was rejected; {@code line} is 1-based and counts the CSV header
+     */
+    public record RowError(long line, String message) {
+    }
+}
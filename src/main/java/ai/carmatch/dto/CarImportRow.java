@@ -0,0 +1,30 @@
+package ai.carmatch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a bulk car import; every field is nullable so missing values can be reported per row
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarImportRow {
+
+    /**
+     * Existing car to update; only accepted in upsert mode
+     */
+    private Long id;
+
+    private String brand;
+    private String model;
+    private Integer year;
+    private Double price;
+    private Integer horsePower;
+    private Double fuelConsumption;
+    private String fuelType;
+    private Boolean compact;
+    private String drivetrainType;
+    private String color;
+}
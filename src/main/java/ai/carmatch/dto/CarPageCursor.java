@@ -0,0 +1,45 @@
+package ai.carmatch.dto;
+
+import ai.carmatch.repository.CarSortField;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last car on a listing page: the sort it was produced under, its sort key and
+ * its id. Clients receive it as an opaque URL-safe token and send it back to fetch the next page.
+ */
+public record CarPageCursor(CarSortField sort, boolean descending, double value, long carId) {
+
+    private static final int ENCODED_BYTES = 2 + Double.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .put((byte) sort.ordinal())
+                .put((byte) (descending ? 1 : 0))
+                .putDouble(value)
+                .putLong(carId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; returns null for a missing token
+     */
+    public static CarPageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int sort = buffer.get();
+        int descending = buffer.get();
+        double value = buffer.getDouble();
+        if (sort < 0 || sort >= CarSortField.values().length || (descending & ~1) != 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new CarPageCursor(CarSortField.values()[sort], descending == 1, value, buffer.getLong());
+    }
+}
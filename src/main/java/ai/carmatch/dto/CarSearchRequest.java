@@ -0,0 +1,30 @@
+package ai.carmatch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Filters of a faceted car search. Values within one facet are alternatives, facets and
+ * ranges must all match, and range bounds are inclusive and optional.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchRequest {
+    private List<String> brand;
+    private List<String> fuelType;
+    private List<String> drivetrainType;
+    private List<String> color;
+    private Boolean compact;
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer minYear;
+    private Integer maxYear;
+    private Integer minHorsePower;
+    private Integer maxHorsePower;
+    private Double minFuelConsumption;
+    private Double maxFuelConsumption;
+}
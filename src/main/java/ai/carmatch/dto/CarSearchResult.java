@@ -0,0 +1,24 @@
+package ai.carmatch.dto;
+
+import ai.carmatch.model.Car;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSearchResult {
+    private List<Car> cars;
+    private long total;
+    private int page;
+    private int size;
+
+    /**
+     * Matching cars per value of each facet, counted under every filter except the facet's own
+     */
+    private Map<String, Map<String, Long>> facets;
+}
@@ -0,0 +1,20 @@
+package ai.carmatch.dto;
+
+/**
+ * Read-only projection of a car for catalog reads, selected column by column instead of
+ * hydrating managed entities. Serializes to the same JSON as {@link ai.carmatch.model.Car}.
+ */
+public record CarView(
+        Long id,
+        String brand,
+        String model,
+        int year,
+        double price,
+        int horsePower,
+        double fuelConsumption,
+        String fuelType,
+        String drivetrainType,
+        String color,
+        boolean compact
+) {
+}
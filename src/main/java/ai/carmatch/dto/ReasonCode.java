@@ -0,0 +1,68 @@
+package ai.carmatch.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Stable, machine-readable reasons behind a recommendation.
+ * Declaration order is the order in which reasons are listed in the English explanation.
+ */
+public enum ReasonCode {
+    EXCELLENT_VALUE("excellent value for money"),
+    GOOD_VALUE("good value within budget"),
+    FITS_BUDGET("fits your budget"),
+    EXCELLENT_FUEL_ECONOMY("excellent fuel economy"),
+    GOOD_FUEL_EFFICIENCY("good fuel efficiency"),
+    NEW_DRIVER_FRIENDLY("perfect for new drivers"),
+    POWERFUL_ENGINE("powerful engine for experienced drivers"),
+    CITY_COMPACT("compact size ideal for city driving"),
+    HIGHWAY_PERFORMANCE("strong performance for highway driving"),
+    PREFERRED_BRAND("matches your preferred brand"),
+    MEETS_REQUIREMENTS("meets your basic requirements");
+
+    private static final ReasonCode[] VALUES = values();
+
+    private final String description;
+
+    ReasonCode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Bit of this reason in a reason mask
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Reasons contained in the mask, in declaration order
+     */
+    public static List<ReasonCode> fromMask(int mask) {
+        List<ReasonCode> codes = new ArrayList<>(Integer.bitCount(mask));
+        for (ReasonCode code : VALUES) {
+            if ((mask & code.bit()) != 0) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Human-readable explanation for the reasons contained in the mask
+     */
+    public static String describe(int mask) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (ReasonCode code : VALUES) {
+            if ((mask & code.bit()) != 0) {
+                joiner.add(code.description);
+            }
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package ai.carmatch.dto;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last recommendation on a page: its score and car id.
+ * Clients receive it as an opaque URL-safe token and send it back to fetch the next page.
+ */
+public record RecommendationCursor(double score, long carId) implements Serializable {
+
+    private static final int ENCODED_BYTES = Double.BYTES + Long.BYTES;
+
+    /**
+     * Whether a candidate ranks strictly after this cursor (score descending, id ascending)
+     */
+    public boolean admits(double candidateScore, long candidateId) {
+        return candidateScore < score || (candidateScore == score && candidateId > carId);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES).putDouble(score).putLong(carId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; returns null for a missing token
+     */
+    public static RecommendationCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        double score = buffer.getDouble();
+        if (Double.isNaN(score)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new RecommendationCursor(score, buffer.getLong());
+    }
+}
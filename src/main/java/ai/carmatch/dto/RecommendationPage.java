@@ -0,0 +1,17 @@
+package ai.carmatch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecommendationPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private List<RecommendationResult> results;
+    private String nextCursor;
+}
@@ -1,10 +1,12 @@
 package ai.carmatch.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -12,7 +14,8 @@ import java.io.Serializable;
 public class RecommendationResult implements Serializable {
     private static final long serialVersionUID = 1L;
     private String model;
-    private String reason;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String reason; // English explanation; null in compact mode
     private double score;
     private String brand;
     private double price;
@@ -23,4 +26,6 @@ public class RecommendationResult implements Serializable {
     private boolean isCompact;
     private String drivetrainType;
     private String color;
-}
\ No newline at end of file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ReasonCode> reasonCodes; // Stable reason codes; only set in compact mode
+}
@@ -0,0 +1,9 @@
+package ai.carmatch.dto;
+
+import ai.carmatch.model.UserPreferences;
+
+/**
+ * Detached copy of a user's saved preferences (null when none are saved) and their revision
+ */
+public record SavedPreferences(Long userId, UserPreferences preferences, long revision) {
+}
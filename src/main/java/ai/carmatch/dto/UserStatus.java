@@ -0,0 +1,7 @@
+package ai.carmatch.dto;
+
+/**
+ * Current id and enabled flag of an account, all token authentication needs to know about it
+ */
+public record UserStatus(Long id, boolean enabled) {
+}
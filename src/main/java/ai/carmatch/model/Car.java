@@ -1,18 +1,39 @@
 package ai.carmatch.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Objects;
 
 @Entity
-@Table(name = "cars")
+@Table(name = "cars", indexes = {
+        // (column, id) pairs serve both range filters and keyset pages sorted on the column
+        @Index(name = "idx_cars_price_id", columnList = "price, id"),
+        @Index(name = "idx_cars_year_id", columnList = "car_year, id"),
+        @Index(name = "idx_cars_horse_power_id", columnList = "horse_power, id"),
+        @Index(name = "idx_cars_fuel_consumption_id", columnList = "fuel_consumption, id"),
+        @Index(name = "idx_cars_compact_price", columnList = "is_compact, price"),
+        @Index(name = "idx_cars_brand_price", columnList = "brand, price"),
+        @Index(name = "idx_cars_catalog_version_id", columnList = "catalog_version, id")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cars")
 @NoArgsConstructor
-@AllArgsConstructor
 public class Car {
+
+    public static final String ID_SEQUENCE = "cars_seq";
+
+    /**
+     * Ids reserved per sequence call; pooled ids let Hibernate batch inserts, which identity columns prevent
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -45,6 +66,28 @@ public class Car {
     @Column(nullable = false)
     private String color;
 
+    /**
+     * Catalog version that last created or changed the car; 0 for cars older than version tracking
+     */
+    @Column(nullable = false, name = "catalog_version")
+    @ColumnDefault("0")
+    private long catalogVersion;
+
+    public Car(Long id, String brand, String model, int year, double price, int horsePower, double fuelConsumption,
+               String fuelType, boolean isCompact, String drivetrainType, String color) {
+        this.id = id;
+        this.brand = brand;
+        this.model = model;
+        this.year = year;
+        this.price = price;
+        this.horsePower = horsePower;
+        this.fuelConsumption = fuelConsumption;
+        this.fuelType = fuelType;
+        this.isCompact = isCompact;
+        this.drivetrainType = drivetrainType;
+        this.color = color;
+    }
+
     public Long getId() {
         return this.id;
     }
@@ -89,6 +132,11 @@ public class Car {
         return this.color;
     }
 
+    @JsonIgnore
+    public long getCatalogVersion() {
+        return this.catalogVersion;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -133,6 +181,11 @@ public class Car {
         this.color = color;
     }
 
+    @JsonIgnore
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Car car)) return false;
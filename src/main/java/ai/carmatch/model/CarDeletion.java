@@ -0,0 +1,33 @@
+package ai.carmatch.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tombstone of a deleted car, so incremental exports can report deletions after the row is gone
+ */
+@Entity
+@Table(name = "car_deletions", indexes = {
+        @Index(name = "idx_car_deletions_catalog_version_id", columnList = "catalog_version, car_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarDeletion {
+
+    @Id
+    @Column(name = "car_id")
+    private Long carId;
+
+    /**
+     * Catalog version that deleted the car
+     */
+    @Column(nullable = false, name = "catalog_version")
+    private long catalogVersion;
+}
@@ -7,6 +7,10 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,20 +18,29 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "user-natural-ids")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User implements UserDetails {
     
+    public static final String ROLE_USER = "ROLE_USER";
+    
+    // Granted to operators and services that may act on other users' data
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String username;
     
@@ -56,6 +69,9 @@ public class User implements UserDetails {
     @Column(name = "is_enabled")
     private Boolean enabled = true;
     
+    @Column(name = "is_admin")
+    private Boolean admin = false;
+    
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private UserPreferences preferences;
     
@@ -73,7 +89,10 @@ public class User implements UserDetails {
     // UserDetails implementation for Spring Security
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        if (Boolean.TRUE.equals(admin)) {
+            return List.of(new SimpleGrantedAuthority(ROLE_USER), new SimpleGrantedAuthority(ROLE_ADMIN));
+        }
+        return Collections.singletonList(new SimpleGrantedAuthority(ROLE_USER));
     }
     
     @Override
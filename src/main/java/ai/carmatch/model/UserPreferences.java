@@ -45,6 +45,12 @@ public class UserPreferences {
     
     @NotNull(message = "Fuel economy priority is required")
     private Boolean fuelEconomyPriority;
+
+    /**
+     * Incremented on every update of the saved preferences; null for rows that were never updated
+     */
+    @JsonIgnore
+    private Long revision;
     
     @Override
     public String toString() {
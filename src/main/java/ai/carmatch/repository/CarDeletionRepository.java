@@ -0,0 +1,9 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.model.CarDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarDeletionRepository extends JpaRepository<CarDeletion, Long> {
+}
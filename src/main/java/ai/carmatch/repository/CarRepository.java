@@ -1,13 +1,29 @@
 package ai.carmatch.repository;
 
+import ai.carmatch.dto.CarView;
 import ai.carmatch.model.Car;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>, CarRepositoryCustom {
+
+    /**
+     * Select clause projecting a car alias {@code c} onto {@link CarView}
+     */
+    String VIEW_SELECT = "select new ai.carmatch.dto.CarView(c.id, c.brand, c.model, c.year, c.price, c.horsePower,"
+            + " c.fuelConsumption, c.fuelType, c.drivetrainType, c.color, c.isCompact)";
+
+    /**
+     * Read-only projection of one car
+     */
+    @Query(VIEW_SELECT + " from Car c where c.id = :id")
+    Optional<CarView> findViewById(Long id);
     
     /**
      * Find cars within budget
@@ -0,0 +1,32 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.dto.CarExportRow;
+import ai.carmatch.dto.CarView;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Queries that need to be assembled by hand rather than derived by Spring Data
+ */
+public interface CarRepositoryCustom {
+
+    /**
+     * Up to {@code limit} cars ordered by {@code sort} and then id, both ascending or both
+     * descending, starting strictly after the car with sort key {@code afterValue} and id
+     * {@code afterId}; a null {@code afterId} starts from the first car
+     */
+    List<CarView> findPage(CarSortField sort, boolean descending, Double afterValue, Long afterId, int limit);
+
+    /**
+     * Forward-only stream of every car in id order, or with {@code sinceVersion}, of the cars
+     * changed after that catalog version in version order, fetched {@code fetchSize} rows at
+     * a time; must be consumed and closed inside a transaction
+     */
+    Stream<CarExportRow> streamForExport(Long sinceVersion, int fetchSize);
+
+    /**
+     * Forward-only stream of the cars deleted after {@code sinceVersion}, in version order
+     */
+    Stream<CarExportRow> streamDeletionsSince(long sinceVersion, int fetchSize);
+}
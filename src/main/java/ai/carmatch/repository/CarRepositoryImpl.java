@@ -0,0 +1,81 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.dto.CarExportRow;
+import ai.carmatch.dto.CarView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pagination for the car listing, returned as {@link CarView} projections.
+ * The position after the previous page is a row value comparison on (sort column, id), which
+ * the database answers by seeking into the matching composite index, so every page costs the
+ * same regardless of how deep it is.
+ * Exports are streamed as projections with a JDBC fetch size, so rows are pulled through a
+ * server-side cursor and never accumulate in the persistence context.
+ */
+public class CarRepositoryImpl implements CarRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CarView> findPage(CarSortField sort, boolean descending, Double afterValue, Long afterId, int limit) {
+        // Only enum property names are concatenated into the query
+        String column = "c." + sort.property();
+        String direction = descending ? "desc" : "asc";
+        String comparison = descending ? "<" : ">";
+        StringBuilder jpql = new StringBuilder(CarRepository.VIEW_SELECT).append(" from Car c");
+        if (afterId != null) {
+            jpql.append(sort == CarSortField.ID
+                    ? " where c.id " + comparison + " :afterId"
+                    : " where (" + column + ", c.id) " + comparison + " (:afterValue, :afterId)");
+        }
+        jpql.append(" order by ");
+        if (sort != CarSortField.ID) {
+            jpql.append(column).append(' ').append(direction).append(", ");
+        }
+        jpql.append("c.id ").append(direction);
+
+        TypedQuery<CarView> query = entityManager.createQuery(jpql.toString(), CarView.class).setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (sort != CarSortField.ID) {
+                query.setParameter("afterValue", sort == CarSortField.YEAR || sort == CarSortField.HORSE_POWER
+                        ? (Object) afterValue.intValue()
+                        : afterValue);
+            }
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<CarExportRow> streamForExport(Long sinceVersion, int fetchSize) {
+        String jpql = "select new ai.carmatch.dto.CarExportRow(c.id, c.brand, c.model, c.year, c.price, c.horsePower,"
+                + " c.fuelConsumption, c.fuelType, c.drivetrainType, c.color, c.isCompact, c.catalogVersion, false)"
+                + " from Car c"
+                + (sinceVersion != null
+                        ? " where c.catalogVersion > :sinceVersion order by c.catalogVersion, c.id"
+                        : " order by c.id");
+        TypedQuery<CarExportRow> query = entityManager.createQuery(jpql, CarExportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        if (sinceVersion != null) {
+            query.setParameter("sinceVersion", sinceVersion);
+        }
+        return query.getResultStream();
+    }
+
+    @Override
+    public Stream<CarExportRow> streamDeletionsSince(long sinceVersion, int fetchSize) {
+        return entityManager.createQuery("select d.carId, d.catalogVersion from CarDeletion d"
+                        + " where d.catalogVersion > :sinceVersion order by d.catalogVersion, d.carId", Object[].class)
+                .setParameter("sinceVersion", sinceVersion)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()
+                .map(row -> CarExportRow.deletion((Long) row[0], (Long) row[1]));
+    }
+}
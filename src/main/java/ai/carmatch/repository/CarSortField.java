@@ -0,0 +1,51 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.dto.CarView;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Columns the car listing can be sorted on. Each is paired with the car id as a tie-breaker
+ * and backed by a composite (column, id) index, so a page is an index range scan.
+ */
+public enum CarSortField {
+    ID("id", CarView::id),
+    PRICE("price", CarView::price),
+    YEAR("year", CarView::year),
+    HORSE_POWER("horsePower", CarView::horsePower),
+    FUEL_CONSUMPTION("fuelConsumption", CarView::fuelConsumption);
+
+    private final String property;
+    private final ToDoubleFunction<CarView> value;
+
+    CarSortField(String property, ToDoubleFunction<CarView> value) {
+        this.property = property;
+        this.value = value;
+    }
+
+    /**
+     * Entity property name, also used as the {@code sort} request parameter
+     */
+    public String property() {
+        return property;
+    }
+
+    /**
+     * Sort key of a car; ints and ids are represented exactly
+     */
+    public double valueOf(CarView car) {
+        return value.applyAsDouble(car);
+    }
+
+    /**
+     * Field with the given property name, or null when there is none
+     */
+    public static CarSortField fromProperty(String property) {
+        for (CarSortField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
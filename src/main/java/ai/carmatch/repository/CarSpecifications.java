@@ -0,0 +1,42 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.model.UserPreferences;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JPA specifications for querying cars
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {
+    }
+
+    /**
+     * Cars that pass the recommendation filters for the given preferences:
+     * budget, novice horsepower limit, compact cars for city use, fuel economy and preferred brands
+     */
+    public static Specification<Car> matchingPreferences(UserPreferences prefs) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.lessThanOrEqualTo(root.get("price"), prefs.getBudget()));
+            if ("novice".equals(prefs.getExperience())) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("horsePower"), 150));
+            }
+            if ("city".equals(prefs.getUseCase())) {
+                predicates.add(cb.isTrue(root.get("isCompact")));
+            }
+            if (prefs.getFuelEconomyPriority()) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("fuelConsumption"), 7.0));
+            }
+            if (prefs.getBrandPreferences() != null && !prefs.getBrandPreferences().isEmpty()) {
+                predicates.add(root.get("brand").in(prefs.getBrandPreferences()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
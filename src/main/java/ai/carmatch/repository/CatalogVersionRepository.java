@@ -0,0 +1,22 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.model.CatalogVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    /**
+     * Find the version row and lock it until the surrounding transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM CatalogVersion v WHERE v.id = :id")
+    Optional<CatalogVersion> findByIdForUpdate(@Param("id") Long id);
+}
@@ -1,24 +1,25 @@
 package ai.carmatch.repository;
 
 import ai.carmatch.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     /**
-     * Find user by username
-     */
-    Optional<User> findByUsername(String username);
-    
-    /**
-     * Find user by email
+     * Find user by email; the result is kept in the query cache until the users table changes
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
     
     /**
@@ -42,6 +43,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.preferences WHERE u.id = :id")
     Optional<User> findByIdWithPreferences(@Param("id") Long id);
+    
+    /**
+     * Find users with preferences and preferred brands by IDs
+     */
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.preferences p LEFT JOIN FETCH p.brandPreferences WHERE u.id IN :ids")
+    List<User> findAllByIdWithPreferences(@Param("ids") Collection<Long> ids);
 }
 
 
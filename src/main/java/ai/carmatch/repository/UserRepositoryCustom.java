@@ -0,0 +1,16 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.model.User;
+
+import java.util.Optional;
+
+/**
+ * User lookups that go through Hibernate's natural-id API rather than a derived query
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Find user by username, resolved through the natural-id and entity caches when possible
+     */
+    Optional<User> findByUsername(String username);
+}
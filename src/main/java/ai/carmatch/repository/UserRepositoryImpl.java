@@ -0,0 +1,29 @@
+package ai.carmatch.repository;
+
+import ai.carmatch.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Username lookups by natural id. A derived query always reaches the database, while a
+ * natural-id load first maps the username to the id through the natural-id cache and then
+ * reads the user from the second-level entity cache, both kept current on every update.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The session behind the shared entity manager only stays open inside a transaction
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
@@ -0,0 +1,18 @@
+package ai.carmatch.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Principal rebuilt from the claims of a verified token, without loading the user entity
+ */
+public record AuthenticatedUser(Long id, String username, List<GrantedAuthority> authorities)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,113 @@
+package ai.carmatch.security;
+
+import ai.carmatch.model.User;
+import ai.carmatch.service.UserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Email and password authentication with a single user lookup.
+ * The deliberately slow password hash check runs on a small dedicated pool with a bounded
+ * queue, so a burst of logins waits there, or is turned away once the queue is full, instead
+ * of occupying the servlet threads that serve every other request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailPasswordAuthenticationProvider implements AuthenticationProvider {
+
+    private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.auth.password-check.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.auth.password-check.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor passwordCheckPool;
+
+    // Checked against when the email is unknown, so the response time does not reveal whether it exists
+    private String unknownUserHash;
+
+    @PostConstruct
+    void createPasswordCheckPool() {
+        AtomicInteger threads = new AtomicInteger();
+        passwordCheckPool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-check-" + threads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        unknownUserHash = passwordEncoder.encode("unknown-user-password");
+    }
+
+    @PreDestroy
+    void shutdownPasswordCheckPool() {
+        passwordCheckPool.shutdownNow();
+    }
+
+    /**
+     * Authenticate an email and password; the future fails with an {@link AuthenticationException}
+     * for bad credentials or a disabled account, and with a {@link RejectedExecutionException}
+     * when too many checks are already waiting
+     */
+    public CompletableFuture<Authentication> authenticateAsync(String email, String password) {
+        try {
+            Optional<User> user = userService.findByEmail(email);
+            String hash = user.map(User::getPassword).orElse(unknownUserHash);
+            return CompletableFuture.supplyAsync(() -> passwordEncoder.matches(password, hash), passwordCheckPool)
+                    .thenApply(matches -> {
+                        if (!matches || user.isEmpty()) {
+                            throw new BadCredentialsException("Invalid email or password");
+                        }
+                        if (!user.get().isEnabled()) {
+                            throw new DisabledException("Account is disabled");
+                        }
+                        return EmailPasswordAuthenticationToken.authenticated(user.get(), user.get().getAuthorities());
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        try {
+            return authenticateAsync((String) authentication.getPrincipal(), (String) authentication.getCredentials()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while checking the password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException failure) {
+                throw failure;
+            }
+            throw new AuthenticationServiceException("Password check failed", e.getCause());
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return EmailPasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
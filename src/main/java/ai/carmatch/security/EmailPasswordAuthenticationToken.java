@@ -0,0 +1,52 @@
+package ai.carmatch.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Email and password login attempt, and once authenticated, the user it belongs to
+ */
+public class EmailPasswordAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final Object principal;
+    private Object credentials;
+
+    private EmailPasswordAuthenticationToken(Object principal, Object credentials,
+                                             Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.principal = principal;
+        this.credentials = credentials;
+    }
+
+    public static EmailPasswordAuthenticationToken unauthenticated(String email, String password) {
+        EmailPasswordAuthenticationToken token = new EmailPasswordAuthenticationToken(email, password, List.of());
+        token.setAuthenticated(false);
+        return token;
+    }
+
+    public static EmailPasswordAuthenticationToken authenticated(Object principal,
+                                                                 Collection<? extends GrantedAuthority> authorities) {
+        EmailPasswordAuthenticationToken token = new EmailPasswordAuthenticationToken(principal, null, authorities);
+        token.setAuthenticated(true);
+        return token;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return credentials;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        super.eraseCredentials();
+        credentials = null;
+    }
+}
@@ -1,11 +1,15 @@
 package ai.carmatch.security;
 
+import ai.carmatch.dto.UserStatus;
 import ai.carmatch.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,6 +17,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -20,6 +26,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserService userService;
 
+    // Authenticate from signed claims and a cached account status instead of loading the user per request
+    @Value("${app.jwt.claims-principal:true}")
+    private boolean claimsPrincipal;
+
     public JwtAuthenticationFilter(JwtService jwtService, UserService userService) {
         this.jwtService = jwtService;
         this.userService = userService;
@@ -53,21 +63,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = headerToken != null ? headerToken : cookieToken;
-        try {
-            username = jwtService.extractUsername(jwt);
-        } catch (Exception e) {
+        Optional<VerifiedToken> verified = jwtService.verify(jwt);
+        if (verified.isEmpty()) {
             filterChain.doFilter(request, response);
             return;
         }
+        username = verified.get().subject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
+            UsernamePasswordAuthenticationToken authToken = null;
+            if (claimsPrincipal && verified.get().userId() != null && verified.get().roles() != null) {
+                authToken = fromClaims(verified.get());
+            } else {
+                UserDetails userDetails = userService.loadUserByUsername(username);
+                if (username.equals(userDetails.getUsername())) {
+                    authToken = new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+                }
+            }
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -75,6 +92,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal rebuilt from the token's claims, checked only against the cached account status;
+     * null when the account is gone, disabled, or was recreated under the same username
+     */
+    private UsernamePasswordAuthenticationToken fromClaims(VerifiedToken token) {
+        Optional<UserStatus> status = userService.getUserStatus(token.subject());
+        if (status.isEmpty() || !status.get().enabled() || !status.get().id().equals(token.userId())) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = token.roles().stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        AuthenticatedUser principal = new AuthenticatedUser(token.userId(), token.subject(), authorities);
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
 }
 
 
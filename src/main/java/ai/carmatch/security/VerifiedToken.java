@@ -0,0 +1,11 @@
+package ai.carmatch.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature and expiry have been checked.
+ * {@code userId} and {@code roles} are null for tokens issued before they were added.
+ */
+public record VerifiedToken(String subject, Long userId, List<String> roles, Instant issuedAt, Instant expiresAt) {
+}
@@ -0,0 +1,142 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.repository.CarRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns the in-memory catalog snapshot used by the recommendation engine.
+ * Car changes committed on this node are applied incrementally, in catalog version order,
+ * on a dedicated thread and swapped in atomically, so readers never touch JPA and never
+ * wait for a rebuild. A periodic version check reloads the catalog when another node
+ * changed it or an update was missed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CarCatalogService {
+
+    private final CarRepository carRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.recommendations.source:snapshot}")
+    private CatalogSource source;
+
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NavigableMap<Long, CatalogChangedEvent> pendingChanges = new TreeMap<>();
+
+    private volatile CarCatalogSnapshot snapshot = CarCatalogSnapshot.EMPTY;
+
+    /**
+     * Whether the catalog is kept in memory; false when recommendations read from the database
+     */
+    public boolean isInMemory() {
+        return source == CatalogSource.SNAPSHOT;
+    }
+
+    /**
+     * Current catalog snapshot; never null, and empty when the catalog is not kept in memory
+     */
+    public CarCatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Catalog version served by this node
+     */
+    public long currentVersion() {
+        return snapshot.version();
+    }
+
+    @PostConstruct
+    void loadInitialSnapshot() {
+        refresh();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        updater.shutdownNow();
+    }
+
+    /**
+     * Reload the catalog if the committed version moved past the one being served
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms:10000}",
+            initialDelayString = "${app.catalog.refresh-interval-ms:10000}")
+    public void scheduledRefresh() {
+        if (catalogVersionService.readCommitted() > snapshot.version()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Queue a committed car change for incremental application
+     */
+    @TransactionalEventListener
+    public void onCatalogChanged(CatalogChangedEvent change) {
+        updater.execute(() -> apply(change));
+    }
+
+    /**
+     * Rebuild the snapshot from the database and publish it
+     */
+    public synchronized void refresh() {
+        long start = System.nanoTime();
+        long version = catalogVersionService.readCommitted();
+        List<Car> cars = isInMemory() ? carRepository.findAll(Sort.by("id")) : List.of();
+        snapshot = CarCatalogSnapshot.of(cars, version);
+        pendingChanges.headMap(version, true).clear();
+        log.info("Catalog snapshot rebuilt with {} cars at version {} in {} ms",
+                cars.size(), version, (System.nanoTime() - start) / 1_000_000);
+        eventPublisher.publishEvent(new CatalogRefreshedEvent(snapshot, null));
+    }
+
+    private synchronized void apply(CatalogChangedEvent change) {
+        if (change.version() <= snapshot.version()) {
+            return;
+        }
+        pendingChanges.put(change.version(), change);
+        CatalogChangedEvent next;
+        while ((next = pendingChanges.remove(snapshot.version() + 1)) != null) {
+            if (next.isBulk()) {
+                // Rows committed after this version may already be visible; applying their
+                // changes again on top of the reload is harmless
+                List<Car> cars = isInMemory() ? carRepository.findAll(Sort.by("id")) : List.of();
+                snapshot = CarCatalogSnapshot.of(cars, next.version());
+                log.info("Catalog snapshot reloaded with {} cars after bulk change at version {}",
+                        cars.size(), next.version());
+                eventPublisher.publishEvent(new CatalogRefreshedEvent(snapshot, null));
+                continue;
+            }
+            snapshot = isInMemory()
+                    ? snapshot.withChange(next.carId(), next.after(), next.version())
+                    : CarCatalogSnapshot.of(List.of(), next.version());
+            eventPublisher.publishEvent(new CatalogRefreshedEvent(snapshot, next));
+        }
+        if (!pendingChanges.isEmpty()) {
+            log.debug("Waiting for catalog version {} before applying {} queued changes",
+                    snapshot.version() + 1, pendingChanges.size());
+        }
+    }
+}
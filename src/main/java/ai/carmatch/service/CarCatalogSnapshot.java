@@ -0,0 +1,304 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented copy of the car catalog used on the recommendation read path.
+ * Every car occupies the same position in each primitive array, positions are ordered by
+ * car id, and string attributes are dictionary encoded so the hot loops only compare ints.
+ */
+public final class CarCatalogSnapshot {
+
+    public static final CarCatalogSnapshot EMPTY = of(List.of(), 0L);
+
+    private final long version;
+    private final long[] ids;
+    private final String[] models;
+    private final double[] prices;
+    private final int[] horsePowers;
+    private final double[] fuelConsumptions;
+    private final int[] years;
+    private final boolean[] compact;
+    private final int[] brandCodes;
+    private final int[] fuelTypeCodes;
+    private final int[] drivetrainCodes;
+    private final int[] colorCodes;
+    private final Dictionary brands;
+    private final Dictionary fuelTypes;
+    private final Dictionary drivetrains;
+    private final Dictionary colors;
+    private final CatalogFilterIndex filterIndex;
+    private final CarScoreTables scoreTables;
+
+    private CarCatalogSnapshot(List<Car> cars, long version) {
+        this.version = version;
+        int n = cars.size();
+        ids = new long[n];
+        models = new String[n];
+        prices = new double[n];
+        horsePowers = new int[n];
+        fuelConsumptions = new double[n];
+        years = new int[n];
+        compact = new boolean[n];
+        brandCodes = new int[n];
+        fuelTypeCodes = new int[n];
+        drivetrainCodes = new int[n];
+        colorCodes = new int[n];
+
+        Map<String, Integer> brandCodesByValue = new HashMap<>();
+        Map<String, Integer> fuelTypeCodesByValue = new HashMap<>();
+        Map<String, Integer> drivetrainCodesByValue = new HashMap<>();
+        Map<String, Integer> colorCodesByValue = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            Car car = cars.get(i);
+            ids[i] = car.getId() != null ? car.getId() : 0L;
+            models[i] = car.getModel();
+            prices[i] = car.getPrice();
+            horsePowers[i] = car.getHorsePower();
+            fuelConsumptions[i] = car.getFuelConsumption();
+            years[i] = car.getYear();
+            compact[i] = car.isCompact();
+            brandCodes[i] = Dictionary.encode(brandCodesByValue, car.getBrand());
+            fuelTypeCodes[i] = Dictionary.encode(fuelTypeCodesByValue, car.getFuelType());
+            drivetrainCodes[i] = Dictionary.encode(drivetrainCodesByValue, car.getDrivetrainType());
+            colorCodes[i] = Dictionary.encode(colorCodesByValue, car.getColor());
+        }
+
+        brands = new Dictionary(brandCodesByValue);
+        fuelTypes = new Dictionary(fuelTypeCodesByValue);
+        drivetrains = new Dictionary(drivetrainCodesByValue);
+        colors = new Dictionary(colorCodesByValue);
+        filterIndex = new CatalogFilterIndex(this);
+        scoreTables = new CarScoreTables(this);
+    }
+
+    /**
+     * Copy of {@code base} without the car at position {@code removed} (-1 for none) and with
+     * {@code row} placed at position {@code inserted} of the new snapshot (-1 for none)
+     */
+    private CarCatalogSnapshot(CarCatalogSnapshot base, int removed, int inserted, Car row, long version) {
+        this.version = version;
+        int n = base.size() - (removed >= 0 ? 1 : 0) + (row != null ? 1 : 0);
+        ids = new long[n];
+        models = new String[n];
+        prices = new double[n];
+        horsePowers = new int[n];
+        fuelConsumptions = new double[n];
+        years = new int[n];
+        compact = new boolean[n];
+        brandCodes = new int[n];
+        fuelTypeCodes = new int[n];
+        drivetrainCodes = new int[n];
+        colorCodes = new int[n];
+
+        brands = row != null ? base.brands.with(row.getBrand()) : base.brands;
+        fuelTypes = row != null ? base.fuelTypes.with(row.getFuelType()) : base.fuelTypes;
+        drivetrains = row != null ? base.drivetrains.with(row.getDrivetrainType()) : base.drivetrains;
+        colors = row != null ? base.colors.with(row.getColor()) : base.colors;
+
+        int from = 0;
+        for (int j = 0; j < n; j++) {
+            if (j == inserted) {
+                ids[j] = row.getId();
+                models[j] = row.getModel();
+                prices[j] = row.getPrice();
+                horsePowers[j] = row.getHorsePower();
+                fuelConsumptions[j] = row.getFuelConsumption();
+                years[j] = row.getYear();
+                compact[j] = row.isCompact();
+                brandCodes[j] = brands.code(row.getBrand());
+                fuelTypeCodes[j] = fuelTypes.code(row.getFuelType());
+                drivetrainCodes[j] = drivetrains.code(row.getDrivetrainType());
+                colorCodes[j] = colors.code(row.getColor());
+                continue;
+            }
+            if (from == removed) {
+                from++;
+            }
+            ids[j] = base.ids[from];
+            models[j] = base.models[from];
+            prices[j] = base.prices[from];
+            horsePowers[j] = base.horsePowers[from];
+            fuelConsumptions[j] = base.fuelConsumptions[from];
+            years[j] = base.years[from];
+            compact[j] = base.compact[from];
+            brandCodes[j] = base.brandCodes[from];
+            fuelTypeCodes[j] = base.fuelTypeCodes[from];
+            drivetrainCodes[j] = base.drivetrainCodes[from];
+            colorCodes[j] = base.colorCodes[from];
+            from++;
+        }
+        filterIndex = new CatalogFilterIndex(this, base.filterIndex, removed, inserted);
+        scoreTables = new CarScoreTables(this);
+    }
+
+    /**
+     * Build a snapshot from the given cars, which must be ordered by id
+     */
+    public static CarCatalogSnapshot of(List<Car> cars, long version) {
+        return new CarCatalogSnapshot(cars, version);
+    }
+
+    /**
+     * Copy of this snapshot with one car inserted, replaced or (when {@code after} is null) removed.
+     * Costs a linear copy of the columns; nothing is re-read from the database or re-sorted.
+     */
+    public CarCatalogSnapshot withChange(long carId, Car after, long version) {
+        int position = positionOf(carId);
+        if (after == null) {
+            return position >= 0
+                    ? new CarCatalogSnapshot(this, position, -1, null, version)
+                    : new CarCatalogSnapshot(this, -1, -1, null, version);
+        }
+        if (position >= 0) {
+            return new CarCatalogSnapshot(this, position, position, after, version);
+        }
+        return new CarCatalogSnapshot(this, -1, -position - 1, after, version);
+    }
+
+    /**
+     * Catalog version this snapshot reflects
+     */
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Position of the car with the given id, or {@code -(insertion point) - 1} when absent
+     */
+    public int positionOf(long carId) {
+        return Arrays.binarySearch(ids, carId);
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public String model(int i) {
+        return models[i];
+    }
+
+    public double price(int i) {
+        return prices[i];
+    }
+
+    public int horsePower(int i) {
+        return horsePowers[i];
+    }
+
+    public double fuelConsumption(int i) {
+        return fuelConsumptions[i];
+    }
+
+    public int year(int i) {
+        return years[i];
+    }
+
+    public boolean isCompact(int i) {
+        return compact[i];
+    }
+
+    public int brandCode(int i) {
+        return brandCodes[i];
+    }
+
+    public String brand(int i) {
+        return brands.value(brandCodes[i]);
+    }
+
+    public String fuelType(int i) {
+        return fuelTypes.value(fuelTypeCodes[i]);
+    }
+
+    public String drivetrainType(int i) {
+        return drivetrains.value(drivetrainCodes[i]);
+    }
+
+    public String color(int i) {
+        return colors.value(colorCodes[i]);
+    }
+
+    /**
+     * Detached car built from the row at position {@code i}
+     */
+    public Car car(int i) {
+        return new Car(ids[i], brand(i), models[i], years[i], prices[i], horsePowers[i], fuelConsumptions[i],
+                fuelType(i), compact[i], drivetrainType(i), color(i));
+    }
+
+    /**
+     * Dictionary code of a brand, or -1 when the snapshot has never seen that brand
+     */
+    public int brandCodeOf(String brand) {
+        return brands.code(brand);
+    }
+
+    public int brandCount() {
+        return brands.size();
+    }
+
+    CatalogFilterIndex filterIndex() {
+        return filterIndex;
+    }
+
+    CarScoreTables scoreTables() {
+        return scoreTables;
+    }
+
+    /**
+     * Raw price column for the score tables; callers must not modify it
+     */
+    double[] priceColumn() {
+        return prices;
+    }
+
+    /**
+     * Immutable value-to-code mapping; extending it copies the (small) dictionary
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes;
+        private final String[] values;
+
+        Dictionary(Map<String, Integer> codes) {
+            this.codes = codes;
+            this.values = new String[codes.size()];
+            codes.forEach((value, code) -> values[code] = value);
+        }
+
+        static int encode(Map<String, Integer> codes, String value) {
+            return codes.computeIfAbsent(value, v -> codes.size());
+        }
+
+        Dictionary with(String value) {
+            if (codes.containsKey(value)) {
+                return this;
+            }
+            Map<String, Integer> extended = new HashMap<>(codes);
+            encode(extended, value);
+            return new Dictionary(extended);
+        }
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : -1;
+        }
+
+        String value(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return values.length;
+        }
+    }
+}
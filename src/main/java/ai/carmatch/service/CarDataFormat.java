@@ -0,0 +1,39 @@
+package ai.carmatch.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Line-oriented formats of bulk car imports and exports
+ */
+public enum CarDataFormat {
+    /**
+     * Comma-separated values with a header row naming the columns
+     */
+    CSV(MediaType.parseMediaType("text/csv")),
+    /**
+     * One JSON object per line
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    CarDataFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Format with the given name, ignoring case; null if there is none
+     */
+    public static CarDataFormat fromName(String name) {
+        for (CarDataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
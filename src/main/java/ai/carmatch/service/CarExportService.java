@@ -0,0 +1,166 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.CarExportRow;
+import ai.carmatch.repository.CarRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Catalog export as CSV or NDJSON.
+ * Rows are streamed from a forward-only database cursor straight into the response, so heap
+ * use does not grow with the catalog. An incremental export lists the cars changed after a
+ * catalog version followed by the tombstones of the cars deleted after it; exporting again
+ * from the version returned by {@link #committedVersion()} before the previous export picks up
+ * everything since, possibly repeating some rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CarExportService {
+
+    private static final String CSV_HEADER = "id,brand,model,year,price,horsePower,fuelConsumption,fuelType,"
+            + "compact,drivetrainType,color,catalogVersion,deleted";
+
+    private final CarRepository carRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cars.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Latest committed catalog version; an export started afterwards contains every change up to it
+     */
+    public long committedVersion() {
+        return catalogVersionService.readCommitted();
+    }
+
+    /**
+     * Write every car, or with {@code sinceVersion} every car changed or deleted after that
+     * version, to {@code out}; returns the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(CarDataFormat format, Long sinceVersion, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        RowWriter writer = format == CarDataFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long written = 0;
+        try (Stream<CarExportRow> cars = carRepository.streamForExport(sinceVersion, fetchSize)) {
+            written += writeAll(cars, writer);
+        }
+        if (sinceVersion != null) {
+            try (Stream<CarExportRow> deletions = carRepository.streamDeletionsSince(sinceVersion, fetchSize)) {
+                written += writeAll(deletions, writer);
+            }
+        }
+        writer.close();
+        log.info("Exported {} catalog rows as {} since version {} in {} ms",
+                written, format, sinceVersion, (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+
+    private static long writeAll(Stream<CarExportRow> rows, RowWriter writer) throws IOException {
+        long written = 0;
+        Iterator<CarExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.write(iterator.next());
+            written++;
+        }
+        return written;
+    }
+
+    private interface RowWriter {
+
+        void write(CarExportRow row) throws IOException;
+
+        /**
+         * Flush everything written; the response stream itself is left open
+         */
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final ObjectWriter rowWriter = objectMapper.writerFor(CarExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(CarExportRow row) throws IOException {
+            rowWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            this.out.write(CSV_HEADER);
+            this.out.write('\n');
+        }
+
+        @Override
+        public void write(CarExportRow row) throws IOException {
+            out.write(String.valueOf(row.id()));
+            field(row.brand());
+            field(row.model());
+            field(row.year());
+            field(row.price());
+            field(row.horsePower());
+            field(row.fuelConsumption());
+            field(row.fuelType());
+            field(row.compact());
+            field(row.drivetrainType());
+            field(row.color());
+            field(row.catalogVersion());
+            field(row.deleted());
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+
+        private void field(Object value) throws IOException {
+            out.write(',');
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                out.write(text);
+                return;
+            }
+            out.write('"');
+            out.write(text.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ai.carmatch.service;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable KD-tree over normalized car feature vectors, built from one catalog snapshot.
+ * Price, horsepower, fuel consumption and year are min-max scaled to [0, 1] and compactness
+ * is 0 or 1; these dimensions are indexed. A different fuel type or drivetrain adds a fixed
+ * penalty to the squared distance, so the indexed distance is a lower bound of the full one
+ * and subtrees can still be pruned on it.
+ * <p>
+ * The tree is implicit: nodes are stored in one array in build order, the node of a range
+ * is its middle element, and each node records the dimension it splits on.
+ */
+final class CarFeatureTree {
+
+    static final int DIMENSIONS = 5;
+
+    // Squared distance added for each categorical feature that differs
+    private static final double CATEGORY_MISMATCH = 1.0;
+
+    private final CarCatalogSnapshot catalog;
+    private final double[] minimums = new double[DIMENSIONS];
+    private final double[] scales = new double[DIMENSIONS];
+    private final double[] points;
+    private final long[] ids;
+    private final String[] fuelTypes;
+    private final String[] drivetrains;
+    private final byte[] splitDimensions;
+
+    CarFeatureTree(CarCatalogSnapshot catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+
+        double[] features = new double[n * DIMENSIONS];
+        double[] maximums = new double[DIMENSIONS];
+        Arrays.fill(minimums, Double.POSITIVE_INFINITY);
+        Arrays.fill(maximums, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double value = rawFeature(catalog, i, d);
+                features[i * DIMENSIONS + d] = value;
+                minimums[d] = Math.min(minimums[d], value);
+                maximums[d] = Math.max(maximums[d], value);
+            }
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double range = maximums[d] - minimums[d];
+            scales[d] = range > 0 ? 1.0 / range : 0.0;
+            if (n == 0) {
+                minimums[d] = 0.0;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                features[i * DIMENSIONS + d] = (features[i * DIMENSIONS + d] - minimums[d]) * scales[d];
+            }
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        splitDimensions = new byte[n];
+        build(order, features, 0, n);
+
+        points = new double[n * DIMENSIONS];
+        ids = new long[n];
+        fuelTypes = new String[n];
+        drivetrains = new String[n];
+        for (int node = 0; node < n; node++) {
+            int i = order[node];
+            System.arraycopy(features, i * DIMENSIONS, points, node * DIMENSIONS, DIMENSIONS);
+            ids[node] = catalog.id(i);
+            fuelTypes[node] = catalog.fuelType(i);
+            drivetrains[node] = catalog.drivetrainType(i);
+        }
+    }
+
+    /**
+     * Snapshot the tree was built from
+     */
+    CarCatalogSnapshot catalog() {
+        return catalog;
+    }
+
+    /**
+     * Feature vector of the car at position {@code i} of {@code snapshot}, scaled like the tree's points
+     */
+    double[] normalize(CarCatalogSnapshot snapshot, int i) {
+        double[] vector = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (rawFeature(snapshot, i, d) - minimums[d]) * scales[d];
+        }
+        return vector;
+    }
+
+    /**
+     * Offer the cars closest to the query to {@code nearest}, scored by negated squared distance,
+     * skipping ids matched by {@code excluded}
+     */
+    void nearest(double[] query, String fuelType, String drivetrain, TopKSelector nearest, LongPredicate excluded) {
+        search(0, ids.length, query, fuelType, drivetrain, nearest, excluded);
+    }
+
+    /**
+     * Squared distance between two normalized feature vectors and their categorical features
+     */
+    static double distance(double[] a, String fuelTypeA, String drivetrainA,
+                           double[] b, int offset, String fuelTypeB, String drivetrainB) {
+        double distance = 0.0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double diff = a[d] - b[offset + d];
+            distance += diff * diff;
+        }
+        if (!Objects.equals(fuelTypeA, fuelTypeB)) {
+            distance += CATEGORY_MISMATCH;
+        }
+        if (!Objects.equals(drivetrainA, drivetrainB)) {
+            distance += CATEGORY_MISMATCH;
+        }
+        return distance;
+    }
+
+    private void search(int lo, int hi, double[] query, String fuelType, String drivetrain,
+                        TopKSelector nearest, LongPredicate excluded) {
+        if (lo >= hi) {
+            return;
+        }
+        int node = (lo + hi) >>> 1;
+        if (!excluded.test(ids[node])) {
+            double distance = distance(query, fuelType, drivetrain, points, node * DIMENSIONS,
+                    fuelTypes[node], drivetrains[node]);
+            nearest.offer(-distance, ids[node], node);
+        }
+
+        int dimension = splitDimensions[node];
+        double diff = query[dimension] - points[node * DIMENSIONS + dimension];
+        boolean lowerFirst = diff < 0;
+        search(lowerFirst ? lo : node + 1, lowerFirst ? node : hi, query, fuelType, drivetrain, nearest, excluded);
+        // The other side is at least |diff| away along the split dimension
+        if (!nearest.isFull() || -(diff * diff) >= nearest.worstScore()) {
+            search(lowerFirst ? node + 1 : lo, lowerFirst ? hi : node, query, fuelType, drivetrain, nearest, excluded);
+        }
+    }
+
+    private void build(int[] order, double[] features, int lo, int hi) {
+        if (hi - lo < 1) {
+            return;
+        }
+        int node = (lo + hi) >>> 1;
+        int dimension = widestDimension(order, features, lo, hi);
+        select(order, features, dimension, lo, hi, node);
+        splitDimensions[node] = (byte) dimension;
+        build(order, features, lo, node);
+        build(order, features, node + 1, hi);
+    }
+
+    private static int widestDimension(int[] order, double[] features, int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int r = lo; r < hi; r++) {
+                double value = features[order[r] * DIMENSIONS + d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = d;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Quickselect with a three-way partition, so runs of equal values (years, compactness)
+     * do not degrade it; afterwards {@code order[nth]} holds the median of the range
+     */
+    private static void select(int[] order, double[] features, int dimension, int lo, int hi, int nth) {
+        while (hi - lo > 1) {
+            double pivot = medianOfThree(
+                    features[order[lo] * DIMENSIONS + dimension],
+                    features[order[(lo + hi) >>> 1] * DIMENSIONS + dimension],
+                    features[order[hi - 1] * DIMENSIONS + dimension]);
+            int less = lo;
+            int greater = hi;
+            int r = lo;
+            while (r < greater) {
+                double value = features[order[r] * DIMENSIONS + dimension];
+                if (value < pivot) {
+                    swap(order, less++, r++);
+                } else if (value > pivot) {
+                    swap(order, r, --greater);
+                } else {
+                    r++;
+                }
+            }
+            if (nth < less) {
+                hi = less;
+            } else if (nth >= greater) {
+                lo = greater;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(int[] order, int a, int b) {
+        int tmp = order[a];
+        order[a] = order[b];
+        order[b] = tmp;
+    }
+
+    private static double rawFeature(CarCatalogSnapshot catalog, int i, int dimension) {
+        return switch (dimension) {
+            case 0 -> catalog.price(i);
+            case 1 -> catalog.horsePower(i);
+            case 2 -> catalog.fuelConsumption(i);
+            case 3 -> catalog.year(i);
+            default -> catalog.isCompact(i) ? 1.0 : 0.0;
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the car id sequence past the ids already in the table. Cars created while ids came
+ * from an identity column are invisible to the sequence, which would otherwise hand their
+ * ids out again. A sequence that is already ahead is left alone, so nodes starting while
+ * others hold allocated id blocks never move it backwards.
+ * <p>
+ * Runs once every singleton is created rather than at construction, so the schema and the
+ * deferred SQL scripts are in place whatever order the beans are built in, and still before
+ * the web server accepts requests that could insert cars.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CarIdSequenceInitializer implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from cars", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("select nextval('" + Car.ID_SEQUENCE + "')", Long.class);
+        if (next != null && next - Car.ID_ALLOCATION_SIZE >= maxId) {
+            return;
+        }
+        // The pooled optimizer hands out the block ending at each sequence value
+        long restart = maxId + Car.ID_ALLOCATION_SIZE + 1;
+        jdbcTemplate.execute("alter sequence " + Car.ID_SEQUENCE + " restart with " + restart);
+        log.info("Car id sequence moved past existing id {} to {}", maxId, restart);
+    }
+}
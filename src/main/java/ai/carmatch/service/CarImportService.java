@@ -0,0 +1,338 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.CarImportResult;
+import ai.carmatch.dto.CarImportRow;
+import ai.carmatch.model.Car;
+import ai.carmatch.repository.CarRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Bulk car import from CSV or NDJSON.
+ * The input is parsed one line at a time and written in batches: each batch is flushed as
+ * batched JDBC statements and then detached, so memory stays flat however long the feed is.
+ * Invalid rows are skipped and reported; the whole import is one transaction that bumps the
+ * catalog version once, stamps it on every car it writes, and publishes a single bulk
+ * {@link CatalogChangedEvent}.
+ * <p>
+ * Written cars carry a provisional negative version private to the import until the end, when
+ * the catalog version is bumped and one bulk update replaces the marker. The version row is
+ * locked only for that last statement, not for the whole feed, so single-car writes are not
+ * held up behind a long import.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CarImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("id", "brand", "model", "year", "price", "horsePower",
+            "fuelConsumption", "fuelType", "compact", "drivetrainType", "color");
+
+    private final CarRepository carRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.cars.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cars.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Import every valid row of {@code input}. Rows carrying an id update that car when
+     * {@code upsert} is set and are rejected otherwise; rows without one are inserted.
+     */
+    @Transactional
+    public CarImportResult importCars(InputStream input, CarDataFormat format, boolean upsert) throws IOException {
+        long start = System.nanoTime();
+        Batch batch = new Batch(upsert);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        Function<String, CarImportRow> parser = format == CarDataFormat.CSV ? csvParser(reader.readLine()) : ndjsonParser();
+        long line = format == CarDataFormat.CSV ? 1 : 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(line, toCar(parser.apply(text), upsert));
+            } catch (IllegalArgumentException e) {
+                batch.reject(line, e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                batch.write();
+            }
+        }
+        batch.write();
+
+        // Bumped last, so an import that writes nothing leaves the version alone and the
+        // version row is locked only from here to the commit
+        Long version = null;
+        if (batch.inserted + batch.updated > 0) {
+            version = catalogVersionService.bump();
+            int stamped = entityManager
+                    .createQuery("update Car c set c.catalogVersion = :version where c.catalogVersion = :marker")
+                    .setParameter("version", version)
+                    .setParameter("marker", batch.marker)
+                    .executeUpdate();
+            log.debug("Stamped catalog version {} on {} imported cars", version, stamped);
+            eventPublisher.publishEvent(CatalogChangedEvent.bulk(version));
+        }
+        log.info("Imported {} new and {} updated cars, rejected {} rows, at catalog version {} in {} ms",
+                batch.inserted, batch.updated, batch.failed, version, (System.nanoTime() - start) / 1_000_000);
+        return new CarImportResult(batch.inserted, batch.updated, batch.failed, version, batch.errors);
+    }
+
+    private Function<String, CarImportRow> ndjsonParser() {
+        ObjectReader rowReader = objectMapper.readerFor(CarImportRow.class);
+        return text -> {
+            try {
+                return rowReader.readValue(text);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private static Function<String, CarImportRow> csvParser(String header) {
+        if (header == null) {
+            return text -> {
+                throw new IllegalArgumentException("Missing CSV header");
+            };
+        }
+        List<String> names = splitCsv(header);
+        int[] columns = new int[names.size()];
+        for (int c = 0; c < names.size(); c++) {
+            columns[c] = CSV_COLUMNS.indexOf(names.get(c).trim());
+            if (columns[c] < 0) {
+                throw new IllegalArgumentException("Unknown CSV column: " + names.get(c));
+            }
+        }
+        return text -> {
+            List<String> values = splitCsv(text);
+            if (values.size() != columns.length) {
+                throw new IllegalArgumentException("Expected " + columns.length + " fields but found " + values.size());
+            }
+            CarImportRow row = new CarImportRow();
+            for (int c = 0; c < columns.length; c++) {
+                setCsvField(row, CSV_COLUMNS.get(columns[c]), values.get(c).trim());
+            }
+            return row;
+        };
+    }
+
+    private static void setCsvField(CarImportRow row, String column, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        try {
+            switch (column) {
+                case "id" -> row.setId(Long.parseLong(value));
+                case "brand" -> row.setBrand(value);
+                case "model" -> row.setModel(value);
+                case "year" -> row.setYear(Integer.parseInt(value));
+                case "price" -> row.setPrice(Double.parseDouble(value));
+                case "horsePower" -> row.setHorsePower(Integer.parseInt(value));
+                case "fuelConsumption" -> row.setFuelConsumption(Double.parseDouble(value));
+                case "fuelType" -> row.setFuelType(value);
+                case "compact" -> row.setCompact(parseBoolean(value));
+                case "drivetrainType" -> row.setDrivetrainType(value);
+                case "color" -> row.setColor(value);
+                default -> throw new IllegalStateException("Unmapped CSV column " + column);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid compact: " + value);
+    }
+
+    /**
+     * Split one CSV record; fields may be quoted, with doubled quotes inside quoted fields
+     */
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static Car toCar(CarImportRow row, boolean upsert) {
+        if (row == null) {
+            throw new IllegalArgumentException("Empty row");
+        }
+        if (row.getId() != null && !upsert) {
+            throw new IllegalArgumentException("id is only accepted in upsert mode");
+        }
+        return new Car(
+                row.getId(),
+                required(row.getBrand(), "brand"),
+                required(row.getModel(), "model"),
+                required(row.getYear(), "year"),
+                nonNegative(required(row.getPrice(), "price"), "price"),
+                (int) nonNegative(required(row.getHorsePower(), "horsePower"), "horsePower"),
+                nonNegative(required(row.getFuelConsumption(), "fuelConsumption"), "fuelConsumption"),
+                required(row.getFuelType(), "fuelType"),
+                required(row.getCompact(), "compact"),
+                required(row.getDrivetrainType(), "drivetrainType"),
+                required(row.getColor(), "color")
+        );
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null || (value instanceof String text && text.isBlank())) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static double nonNegative(double value, String field) {
+        if (!(value >= 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(field + " must be a non-negative number");
+        }
+        return value;
+    }
+
+    /**
+     * Rows waiting to be written, and the running totals of the import
+     */
+    private final class Batch {
+        private final boolean upsert;
+        private final List<Car> inserts = new ArrayList<>();
+        private final Map<Long, Car> updates = new HashMap<>();
+        private final Map<Long, Long> updateLines = new HashMap<>();
+        private final List<CarImportResult.RowError> errors = new ArrayList<>();
+        private long inserted;
+        private long updated;
+        private long failed;
+
+        // Provisional catalog version of the cars written so far; negative, so never a real
+        // version, and unique to this import so the final update only touches its own rows
+        private final long marker = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+        Batch(boolean upsert) {
+            this.upsert = upsert;
+        }
+
+        int size() {
+            return inserts.size() + updates.size();
+        }
+
+        void add(long line, Car car) {
+            if (car.getId() == null) {
+                inserts.add(car);
+                return;
+            }
+            // A later row for the same car wins within the batch
+            updates.put(car.getId(), car);
+            updateLines.put(car.getId(), line);
+        }
+
+        void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CarImportResult.RowError(line, message));
+            }
+        }
+
+        /**
+         * Write the pending rows as JDBC batches and detach them
+         */
+        void write() {
+            if (upsert && !updates.isEmpty()) {
+                Map<Long, Car> existing = new HashMap<>();
+                for (Car car : carRepository.findAllById(updates.keySet())) {
+                    existing.put(car.getId(), car);
+                }
+                updates.forEach((id, update) -> {
+                    Car car = existing.get(id);
+                    if (car == null) {
+                        reject(updateLines.get(id), "Car " + id + " does not exist");
+                        return;
+                    }
+                    car.setCatalogVersion(marker);
+                    car.setBrand(update.getBrand());
+                    car.setModel(update.getModel());
+                    car.setYear(update.getYear());
+                    car.setPrice(update.getPrice());
+                    car.setHorsePower(update.getHorsePower());
+                    car.setFuelConsumption(update.getFuelConsumption());
+                    car.setFuelType(update.getFuelType());
+                    car.setCompact(update.isCompact());
+                    car.setDrivetrainType(update.getDrivetrainType());
+                    car.setColor(update.getColor());
+                    updated++;
+                });
+            }
+            for (Car car : inserts) {
+                car.setCatalogVersion(marker);
+                entityManager.persist(car);
+            }
+            inserted += inserts.size();
+            entityManager.flush();
+            entityManager.clear();
+            inserts.clear();
+            updates.clear();
+            updateLines.clear();
+        }
+    }
+}
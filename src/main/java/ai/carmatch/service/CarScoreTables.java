@@ -0,0 +1,124 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+
+/**
+ * Preference-independent parts of the recommendation score, precomputed per car when a
+ * snapshot is built: the fuel score under both weightings, the experience points for each
+ * level and the use case bonus for each use case. Only the price term depends on the budget,
+ * so scoring a car for a request is the budget term plus three array reads.
+ * <p>
+ * The tables hold exactly the values the reference formula adds, and {@link Terms#score(int)}
+ * adds them in the same order, so table-based scores are bit-identical to
+ * {@link RecommendationService#calculateScore(CarCatalogSnapshot, int, UserPreferences)}.
+ */
+final class CarScoreTables {
+
+    private final double[] prices;
+    private final double[][] fuelScores;
+    private final double[][] experiencePoints;
+    private final double[][] useCasePoints;
+
+    CarScoreTables(CarCatalogSnapshot catalog) {
+        int n = catalog.size();
+        prices = catalog.priceColumn();
+        fuelScores = new double[2][n];
+        experiencePoints = new double[Experience.values().length][n];
+        useCasePoints = new double[UseCase.values().length][];
+        for (UseCase useCase : UseCase.values()) {
+            useCasePoints[useCase.ordinal()] = useCase == UseCase.OTHER
+                    ? useCasePoints[UseCase.OFFROAD.ordinal()] // both score zero, share the column
+                    : new double[n];
+        }
+        for (int i = 0; i < n; i++) {
+            fuelScores[0][i] = fuelScore(catalog.fuelConsumption(i), false);
+            fuelScores[1][i] = fuelScore(catalog.fuelConsumption(i), true);
+            for (Experience experience : Experience.values()) {
+                experiencePoints[experience.ordinal()][i] = experiencePoints(catalog.horsePower(i), experience);
+            }
+            for (UseCase useCase : UseCase.values()) {
+                useCasePoints[useCase.ordinal()][i] =
+                        useCasePoints(catalog.horsePower(i), catalog.isCompact(i), useCase);
+            }
+        }
+    }
+
+    /**
+     * Table rows selected by a request's preferences
+     */
+    Terms terms(UserPreferences prefs) {
+        return new Terms(
+                prefs.getBudget(),
+                prices,
+                fuelScores[prefs.getFuelEconomyPriority() ? 1 : 0],
+                experiencePoints[Experience.of(prefs.getExperience()).ordinal()],
+                useCasePoints[UseCase.of(prefs.getUseCase()).ordinal()]
+        );
+    }
+
+    /**
+     * Fuel economy score (0-30 points when prioritized, 0-15 points otherwise)
+     */
+    static double fuelScore(double fuelConsumption, boolean fuelEconomyPriority) {
+        if (fuelEconomyPriority) {
+            return Math.max(0, (10.0 - fuelConsumption) / 10.0 * 30);
+        }
+        // Still consider fuel economy but with lower weight
+        return Math.max(0, (15.0 - fuelConsumption) / 15.0 * 15);
+    }
+
+    /**
+     * Experience appropriateness score (0-20 points)
+     */
+    static double experiencePoints(int horsePower, Experience experience) {
+        switch (experience) {
+            case NOVICE:
+                if (horsePower <= 100) {
+                    return 20;
+                } else if (horsePower <= 150) {
+                    return 10;
+                }
+                return 0;
+            case INTERMEDIATE:
+                return horsePower >= 100 && horsePower <= 250 ? 20 : 10;
+            default: // expert
+                if (horsePower >= 200) {
+                    return 20;
+                } else if (horsePower >= 150) {
+                    return 15;
+                }
+                return 5;
+        }
+    }
+
+    /**
+     * Use case suitability score (0-10 points)
+     */
+    static double useCasePoints(int horsePower, boolean compact, UseCase useCase) {
+        return switch (useCase) {
+            case CITY -> compact ? 10 : 0;
+            case HIGHWAY -> horsePower >= 150 ? 10 : 0;
+            case MIXED -> 5; // Neutral score for mixed use
+            default -> 0;
+        };
+    }
+
+    /**
+     * Budget and table rows for one request
+     */
+    record Terms(double budget, double[] prices, double[] fuelScores, double[] experiencePoints,
+                 double[] useCasePoints) {
+
+        /**
+         * Score of the car at position {@code i}
+         */
+        double score(int i) {
+            double score = 0.0;
+            score += (1.0 - prices[i] / budget) * 40;
+            score += fuelScores[i];
+            score += experiencePoints[i];
+            score += useCasePoints[i];
+            return Math.max(0, score);
+        }
+    }
+}
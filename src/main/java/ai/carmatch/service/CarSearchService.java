@@ -0,0 +1,196 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.CarSearchRequest;
+import ai.carmatch.dto.CarSearchResult;
+import ai.carmatch.model.Car;
+import ai.carmatch.repository.CarRepository;
+import ai.carmatch.service.CatalogBitmapIndex.Column;
+import ai.carmatch.service.CatalogBitmapIndex.Facet;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Faceted car search over a {@link CatalogBitmapIndex}.
+ * The ranges and the facet selections are each resolved to a bitmap of catalog positions;
+ * their intersection is the result, and each facet is counted by intersecting its value
+ * bitmaps with the selections of the other facets, so a selected value does not hide the
+ * alternatives to it. The index is rebuilt in the background after catalog changes, with
+ * bursts coalesced into one rebuild, and results follow the snapshot it was built from.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CarSearchService {
+
+    private final CarCatalogService carCatalogService;
+    private final CarRepository carRepository;
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "car-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private volatile CatalogBitmapIndex index;
+
+    /**
+     * One page of the cars matching the request, in id order, with facet counts
+     */
+    public CarSearchResult search(CarSearchRequest request, int page, int size) {
+        CatalogBitmapIndex current = index();
+        CarCatalogSnapshot catalog = current.catalog();
+
+        RoaringBitmap ranges = current.all();
+        ranges = current.range(Column.PRICE, request.getMinPrice(), request.getMaxPrice(), ranges);
+        ranges = current.range(Column.YEAR, asDouble(request.getMinYear()), asDouble(request.getMaxYear()), ranges);
+        ranges = current.range(Column.HORSE_POWER,
+                asDouble(request.getMinHorsePower()), asDouble(request.getMaxHorsePower()), ranges);
+        ranges = current.range(Column.FUEL_CONSUMPTION,
+                request.getMinFuelConsumption(), request.getMaxFuelConsumption(), ranges);
+
+        // Null selection: the facet is not filtered
+        RoaringBitmap[] selections = new RoaringBitmap[Facet.values().length];
+        for (Facet facet : Facet.values()) {
+            selections[facet.ordinal()] = select(current, facet, selectedValues(request, facet));
+        }
+
+        RoaringBitmap matching = intersect(ranges, selections, null);
+        int total = matching.getCardinality();
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (Facet facet : Facet.values()) {
+            RoaringBitmap context = selections[facet.ordinal()] == null ? matching : intersect(ranges, selections, facet);
+            facets.put(facet.key(), count(current.values(facet), context));
+        }
+
+        List<Car> cars = new ArrayList<>(size);
+        long offset = (long) page * size;
+        if (offset < total) {
+            PeekableIntIterator positions = matching.getIntIterator();
+            positions.advanceIfNeeded(matching.select((int) offset));
+            while (positions.hasNext() && cars.size() < size) {
+                cars.add(catalog.car(positions.next()));
+            }
+        }
+        return new CarSearchResult(cars, total, page, size, facets);
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        // Coalesce bursts of catalog changes into one rebuild of the latest catalog
+        if (rebuildQueued.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private static RoaringBitmap select(CatalogBitmapIndex index, Facet facet, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Map<String, RoaringBitmap> bitmaps = index.values(facet);
+        List<RoaringBitmap> selected = new ArrayList<>(values.size());
+        for (String value : values) {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                selected.add(bitmap);
+            }
+        }
+        return FastAggregation.or(selected.iterator());
+    }
+
+    /**
+     * Intersection of the ranges with every facet selection except {@code skipped}'s
+     */
+    private static RoaringBitmap intersect(RoaringBitmap ranges, RoaringBitmap[] selections, Facet skipped) {
+        RoaringBitmap result = ranges;
+        for (Facet facet : Facet.values()) {
+            RoaringBitmap selection = selections[facet.ordinal()];
+            if (facet != skipped && selection != null) {
+                result = RoaringBitmap.and(result, selection);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Non-zero counts of each value within {@code context}, largest first
+     */
+    private static Map<String, Long> count(Map<String, RoaringBitmap> values, RoaringBitmap context) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>(values.size());
+        for (Map.Entry<String, RoaringBitmap> value : values.entrySet()) {
+            long count = RoaringBitmap.andCardinality(value.getValue(), context);
+            if (count > 0) {
+                counts.add(Map.entry(value.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private static List<String> selectedValues(CarSearchRequest request, Facet facet) {
+        return switch (facet) {
+            case BRAND -> request.getBrand();
+            case FUEL_TYPE -> request.getFuelType();
+            case DRIVETRAIN_TYPE -> request.getDrivetrainType();
+            case COLOR -> request.getColor();
+            case COMPACT -> request.getCompact() != null ? List.of(request.getCompact().toString()) : null;
+        };
+    }
+
+    private static Double asDouble(Integer value) {
+        return value != null ? value.doubleValue() : null;
+    }
+
+    private CatalogBitmapIndex index() {
+        CatalogBitmapIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    rebuild();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void rebuild() {
+        long start = System.nanoTime();
+        CarCatalogSnapshot catalog = carCatalogService.isInMemory()
+                ? carCatalogService.current()
+                : CarCatalogSnapshot.of(carRepository.findAll(Sort.by("id")), carCatalogService.currentVersion());
+        if (index != null && index.catalog() == catalog) {
+            return;
+        }
+        index = new CatalogBitmapIndex(catalog);
+        log.info("Car search index rebuilt with {} cars at version {} in {} ms",
+                catalog.size(), catalog.version(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
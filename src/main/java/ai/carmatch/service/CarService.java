@@ -0,0 +1,102 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.model.CarDeletion;
+import ai.carmatch.repository.CarDeletionRepository;
+import ai.carmatch.repository.CarRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Car mutations. Every write bumps the catalog version in the same transaction, stamps it on
+ * the changed car (or on a tombstone for a deleted one) and publishes a
+ * {@link CatalogChangedEvent} that listeners receive after commit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CarService {
+
+    private final CarRepository carRepository;
+    private final CarDeletionRepository carDeletionRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Create a new car
+     */
+    @Transactional
+    public Car createCar(Car car) {
+        long version = catalogVersionService.bump();
+        car.setCatalogVersion(version);
+        Car saved = carRepository.save(car);
+        eventPublisher.publishEvent(new CatalogChangedEvent(version, saved.getId(), null, copyOf(saved)));
+        log.info("Created car {} at catalog version {}", saved.getId(), version);
+        return saved;
+    }
+
+    /**
+     * Update an existing car; empty if it does not exist
+     */
+    @Transactional
+    public Optional<Car> updateCar(Long id, Car update) {
+        return carRepository.findById(id)
+                .map(existing -> {
+                    long version = catalogVersionService.bump();
+                    Car before = copyOf(existing);
+                    existing.setBrand(update.getBrand());
+                    existing.setModel(update.getModel());
+                    existing.setYear(update.getYear());
+                    existing.setPrice(update.getPrice());
+                    existing.setHorsePower(update.getHorsePower());
+                    existing.setFuelConsumption(update.getFuelConsumption());
+                    existing.setFuelType(update.getFuelType());
+                    existing.setCompact(update.isCompact());
+                    existing.setDrivetrainType(update.getDrivetrainType());
+                    existing.setColor(update.getColor());
+                    existing.setCatalogVersion(version);
+                    Car saved = carRepository.save(existing);
+                    eventPublisher.publishEvent(new CatalogChangedEvent(version, id, before, copyOf(saved)));
+                    log.info("Updated car {} at catalog version {}", id, version);
+                    return saved;
+                });
+    }
+
+    /**
+     * Delete a car; false if it does not exist
+     */
+    @Transactional
+    public boolean deleteCar(Long id) {
+        Optional<Car> existing = carRepository.findById(id);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        long version = catalogVersionService.bump();
+        carRepository.delete(existing.get());
+        carDeletionRepository.save(new CarDeletion(id, version));
+        eventPublisher.publishEvent(new CatalogChangedEvent(version, id, copyOf(existing.get()), null));
+        log.info("Deleted car {} at catalog version {}", id, version);
+        return true;
+    }
+
+    private static Car copyOf(Car car) {
+        return new Car(
+                car.getId(),
+                car.getBrand(),
+                car.getModel(),
+                car.getYear(),
+                car.getPrice(),
+                car.getHorsePower(),
+                car.getFuelConsumption(),
+                car.getFuelType(),
+                car.isCompact(),
+                car.getDrivetrainType(),
+                car.getColor()
+        );
+    }
+}
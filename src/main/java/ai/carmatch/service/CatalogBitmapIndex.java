@@ -0,0 +1,191 @@
+package ai.carmatch.service;
+
+import org.roaringbitmap.RangeBitmap;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Compressed bitmap indexes over one {@link CarCatalogSnapshot} for faceted search.
+ * Each categorical facet keeps one Roaring bitmap of catalog positions per value, and each
+ * numeric column is a {@link RangeBitmap} over the dense rank of its values, so filters and
+ * facet counts are bitmap intersections instead of scans over the catalog.
+ */
+final class CatalogBitmapIndex {
+
+    /**
+     * Categorical attribute searches can filter on and count by
+     */
+    enum Facet {
+        BRAND("brand"),
+        FUEL_TYPE("fuelType"),
+        DRIVETRAIN_TYPE("drivetrainType"),
+        COLOR("color"),
+        COMPACT("compact");
+
+        private final String key;
+
+        Facet(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Name of the facet in requests and responses
+         */
+        String key() {
+            return key;
+        }
+    }
+
+    /**
+     * Numeric attribute searches can filter on by range
+     */
+    enum Column {
+        PRICE, YEAR, HORSE_POWER, FUEL_CONSUMPTION
+    }
+
+    private final CarCatalogSnapshot catalog;
+    private final RoaringBitmap all;
+    private final Map<String, RoaringBitmap>[] facets;
+    private final RangeColumn[] columns;
+
+    @SuppressWarnings("unchecked")
+    CatalogBitmapIndex(CarCatalogSnapshot catalog) {
+        this.catalog = catalog;
+        int n = catalog.size();
+        all = RoaringBitmap.bitmapOfRange(0, n);
+
+        facets = new Map[Facet.values().length];
+        for (Facet facet : Facet.values()) {
+            facets[facet.ordinal()] = new HashMap<>();
+        }
+        // Positions are added in increasing order, which Roaring appends without searching
+        for (int i = 0; i < n; i++) {
+            for (Facet facet : Facet.values()) {
+                facets[facet.ordinal()].computeIfAbsent(value(catalog, i, facet), v -> new RoaringBitmap()).add(i);
+            }
+        }
+        for (Map<String, RoaringBitmap> values : facets) {
+            values.values().forEach(RoaringBitmap::runOptimize);
+        }
+
+        columns = new RangeColumn[Column.values().length];
+        columns[Column.PRICE.ordinal()] = new RangeColumn(n, catalog::price);
+        columns[Column.YEAR.ordinal()] = new RangeColumn(n, catalog::year);
+        columns[Column.HORSE_POWER.ordinal()] = new RangeColumn(n, catalog::horsePower);
+        columns[Column.FUEL_CONSUMPTION.ordinal()] = new RangeColumn(n, catalog::fuelConsumption);
+    }
+
+    /**
+     * Snapshot the index was built from
+     */
+    CarCatalogSnapshot catalog() {
+        return catalog;
+    }
+
+    /**
+     * Positions of every car in the snapshot; callers must not modify it
+     */
+    RoaringBitmap all() {
+        return all;
+    }
+
+    /**
+     * Bitmap of each value of a facet; callers must not modify the bitmaps
+     */
+    Map<String, RoaringBitmap> values(Facet facet) {
+        return facets[facet.ordinal()];
+    }
+
+    /**
+     * Positions within {@code context} whose column value lies in [min, max], either bound
+     * being optional; {@code context} itself is returned when the range excludes nothing
+     */
+    RoaringBitmap range(Column column, Double min, Double max, RoaringBitmap context) {
+        return columns[column.ordinal()].between(min, max, context);
+    }
+
+    private static String value(CarCatalogSnapshot catalog, int i, Facet facet) {
+        return switch (facet) {
+            case BRAND -> catalog.brand(i);
+            case FUEL_TYPE -> catalog.fuelType(i);
+            case DRIVETRAIN_TYPE -> catalog.drivetrainType(i);
+            case COLOR -> catalog.color(i);
+            case COMPACT -> String.valueOf(catalog.isCompact(i));
+        };
+    }
+
+    /**
+     * Range index over one numeric column. Values are stored as their rank among the column's
+     * distinct values, which keeps the bit-sliced index as shallow as the number of distinct
+     * values allows and maps both int and double columns onto the same unsigned keys.
+     */
+    private static final class RangeColumn {
+        private final double[] distinct;
+        private final RangeBitmap bitmap;
+
+        RangeColumn(int n, IntToDoubleFunction column) {
+            double[] sorted = new double[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = column.applyAsDouble(i);
+            }
+            Arrays.sort(sorted);
+            int size = 0;
+            for (int r = 0; r < n; r++) {
+                if (size == 0 || Double.compare(sorted[r], sorted[size - 1]) != 0) {
+                    sorted[size++] = sorted[r];
+                }
+            }
+            distinct = Arrays.copyOf(sorted, size);
+
+            RangeBitmap.Appender appender = RangeBitmap.appender(Math.max(size - 1, 0));
+            for (int i = 0; i < n; i++) {
+                appender.add(Arrays.binarySearch(distinct, column.applyAsDouble(i)));
+            }
+            bitmap = appender.build();
+        }
+
+        RoaringBitmap between(Double min, Double max, RoaringBitmap context) {
+            int low = min != null ? firstAtLeast(min) : 0;
+            int high = max != null ? firstAbove(max) - 1 : distinct.length - 1;
+            if (low > high) {
+                return new RoaringBitmap();
+            }
+            if (low == 0 && high == distinct.length - 1) {
+                return context;
+            }
+            return bitmap.between(low, high, context);
+        }
+
+        private int firstAtLeast(double value) {
+            int lo = 0;
+            int hi = distinct.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (distinct[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int firstAbove(double value) {
+            int lo = 0;
+            int hi = distinct.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (distinct[mid] <= value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+
+/**
+ * Published inside the transaction that changes a car; {@code before} is null for a new car
+ * and {@code after} is null for a deleted one. Both are detached copies.
+ * A bulk change that touched many cars has a null {@code carId} and no copies; listeners
+ * reload the catalog instead of applying it car by car.
+ */
+public record CatalogChangedEvent(long version, Long carId, Car before, Car after) {
+
+    public static CatalogChangedEvent bulk(long version) {
+        return new CatalogChangedEvent(version, null, null, null);
+    }
+
+    public boolean isBulk() {
+        return carId == null;
+    }
+}
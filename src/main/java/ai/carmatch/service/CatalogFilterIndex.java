@@ -0,0 +1,163 @@
+package ai.carmatch.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Secondary indexes over a {@link CarCatalogSnapshot} for the recommendation filters:
+ * a price-sorted permutation for the budget cutoff and one bitset per boolean rule and brand,
+ * along with the match counts used to estimate filter selectivity.
+ */
+final class CatalogFilterIndex {
+
+    static final int NOVICE_MAX_HORSE_POWER = 150;
+    static final double ECONOMY_MAX_FUEL_CONSUMPTION = 7.0;
+
+    private final int[] byPrice;
+    private final double[] sortedPrices;
+    private final BitSet compact;
+    private final BitSet lowFuelConsumption;
+    private final BitSet lowHorsePower;
+    private final BitSet[] brands;
+    private int compactCount;
+    private int lowFuelConsumptionCount;
+    private int lowHorsePowerCount;
+    private final int[] brandCounts;
+
+    CatalogFilterIndex(CarCatalogSnapshot catalog) {
+        int n = catalog.size();
+        byPrice = IntStream.range(0, n)
+                .boxed()
+                .sorted(Comparator.comparingDouble(catalog::price))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        sortedPrices = new double[n];
+        for (int r = 0; r < n; r++) {
+            sortedPrices[r] = catalog.price(byPrice[r]);
+        }
+
+        compact = new BitSet(n);
+        lowFuelConsumption = new BitSet(n);
+        lowHorsePower = new BitSet(n);
+        brands = new BitSet[catalog.brandCount()];
+        brandCounts = new int[catalog.brandCount()];
+        fillBitsets(catalog);
+    }
+
+    /**
+     * Derive the index of {@code catalog} from the index of the snapshot it was copied from,
+     * where the car at {@code removed} was dropped and a car was placed at {@code inserted}
+     * (either may be -1). The price permutation is merged in linear time instead of re-sorted.
+     */
+    CatalogFilterIndex(CarCatalogSnapshot catalog, CatalogFilterIndex base, int removed, int inserted) {
+        int n = catalog.size();
+        byPrice = new int[n];
+        sortedPrices = new double[n];
+        double insertedPrice = inserted >= 0 ? catalog.price(inserted) : 0;
+        boolean placed = inserted < 0;
+        int rank = 0;
+        for (int baseRank = 0; baseRank < base.byPrice.length; baseRank++) {
+            int position = base.byPrice[baseRank];
+            if (position == removed) {
+                continue;
+            }
+            if (removed >= 0 && position > removed) {
+                position--;
+            }
+            if (inserted >= 0 && position >= inserted) {
+                position++;
+            }
+            if (!placed && base.sortedPrices[baseRank] > insertedPrice) {
+                byPrice[rank] = inserted;
+                sortedPrices[rank++] = insertedPrice;
+                placed = true;
+            }
+            byPrice[rank] = position;
+            sortedPrices[rank++] = base.sortedPrices[baseRank];
+        }
+        if (!placed) {
+            byPrice[rank] = inserted;
+            sortedPrices[rank] = insertedPrice;
+        }
+
+        compact = new BitSet(n);
+        lowFuelConsumption = new BitSet(n);
+        lowHorsePower = new BitSet(n);
+        brands = new BitSet[catalog.brandCount()];
+        brandCounts = new int[catalog.brandCount()];
+        fillBitsets(catalog);
+    }
+
+    private void fillBitsets(CarCatalogSnapshot catalog) {
+        int n = catalog.size();
+        Arrays.setAll(brands, b -> new BitSet(n));
+        for (int i = 0; i < n; i++) {
+            compact.set(i, catalog.isCompact(i));
+            lowFuelConsumption.set(i, catalog.fuelConsumption(i) <= ECONOMY_MAX_FUEL_CONSUMPTION);
+            lowHorsePower.set(i, catalog.horsePower(i) <= NOVICE_MAX_HORSE_POWER);
+            brands[catalog.brandCode(i)].set(i);
+            brandCounts[catalog.brandCode(i)]++;
+        }
+        compactCount = compact.cardinality();
+        lowFuelConsumptionCount = lowFuelConsumption.cardinality();
+        lowHorsePowerCount = lowHorsePower.cardinality();
+    }
+
+    /**
+     * Number of cars priced at or below the budget; they are the first entries of {@link #positionByPrice(int)}
+     */
+    int countWithinBudget(double budget) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] <= budget) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Catalog position of the car with the given rank in ascending price order
+     */
+    int positionByPrice(int rank) {
+        return byPrice[rank];
+    }
+
+    BitSet compact() {
+        return compact;
+    }
+
+    BitSet lowFuelConsumption() {
+        return lowFuelConsumption;
+    }
+
+    BitSet lowHorsePower() {
+        return lowHorsePower;
+    }
+
+    BitSet brand(int brandCode) {
+        return brands[brandCode];
+    }
+
+    int compactCount() {
+        return compactCount;
+    }
+
+    int lowFuelConsumptionCount() {
+        return lowFuelConsumptionCount;
+    }
+
+    int lowHorsePowerCount() {
+        return lowHorsePowerCount;
+    }
+
+    int brandCount(int brandCode) {
+        return brandCounts[brandCode];
+    }
+}
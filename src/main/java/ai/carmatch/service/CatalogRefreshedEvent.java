@@ -0,0 +1,8 @@
+package ai.carmatch.service;
+
+/**
+ * Published after a new catalog snapshot has been swapped in.
+ * {@code change} is the single car change that produced it, or null after a full reload.
+ */
+public record CatalogRefreshedEvent(CarCatalogSnapshot snapshot, CatalogChangedEvent change) {
+}
@@ -0,0 +1,131 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.CarPageCursor;
+import ai.carmatch.dto.CarView;
+import ai.carmatch.repository.CarRepository;
+import ai.carmatch.repository.CarSortField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog read responses kept as ready-to-send bytes.
+ * Listing pages and single cars are read as {@link CarView} projections, serialized and gzipped
+ * once, and cached under the catalog version they were read at, so a repeated read is a byte
+ * copy without entity hydration or serialization. Entries of older versions are dropped as soon
+ * as a newer snapshot is published; reads racing a commit at most cache the newer rows under
+ * the older version, which is never served once the new version is visible.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogResponseCache {
+
+    private final CarRepository carRepository;
+    private final CarCatalogService carCatalogService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cars.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private Cache<Key, EncodedResponse> responses;
+
+    /**
+     * Serialized JSON body, its gzip encoding and, for listing pages, the cursor of the next page.
+     * Every body is compressed, even small ones, so the served encoding, and with it the ETag,
+     * follows from Accept-Encoding alone and a conditional request never has to load the body.
+     */
+    public record EncodedResponse(byte[] json, byte[] gzip, String nextCursor) {
+
+        int weight() {
+            return json.length + gzip.length;
+        }
+    }
+
+    private record Key(long version, Object request) {
+    }
+
+    private record PageRequest(CarSortField sort, boolean descending, CarPageCursor after, int limit) {
+    }
+
+    @PostConstruct
+    void createCache() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, EncodedResponse response) -> response.weight())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Catalog version responses are currently read and cached at
+     */
+    public long version() {
+        return carCatalogService.currentVersion();
+    }
+
+    /**
+     * One car, or empty when it does not exist; misses are not cached
+     */
+    public Optional<EncodedResponse> car(long id) {
+        Key key = new Key(carCatalogService.currentVersion(), id);
+        return Optional.ofNullable(responses.get(key,
+                k -> carRepository.findViewById(id).map(view -> encode(view, null)).orElse(null)));
+    }
+
+    /**
+     * One listing page of at most {@code limit} cars after {@code after} (null for the first page)
+     */
+    public EncodedResponse page(CarSortField sort, boolean descending, CarPageCursor after, int limit) {
+        Key key = new Key(carCatalogService.currentVersion(), new PageRequest(sort, descending, after, limit));
+        return responses.get(key, k -> {
+            // One extra row tells whether another page follows
+            List<CarView> cars = carRepository.findPage(sort, descending,
+                    after != null ? after.value() : null, after != null ? after.carId() : null, limit + 1);
+            String nextCursor = null;
+            if (cars.size() > limit) {
+                cars = cars.subList(0, limit);
+                CarView last = cars.get(limit - 1);
+                nextCursor = new CarPageCursor(sort, descending, sort.valueOf(last), last.id()).encode();
+            }
+            return encode(cars, nextCursor);
+        });
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        long version = event.snapshot().version();
+        responses.asMap().keySet().removeIf(key -> key.version() < version);
+        log.debug("Catalog version {} left {} cached catalog responses", version, responses.estimatedSize());
+    }
+
+    private EncodedResponse encode(Object body, String nextCursor) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new EncodedResponse(json, gzip(json), nextCursor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,16 @@
+package ai.carmatch.service;
+
+/**
+ * Where the recommendation engine reads candidate cars from
+ */
+public enum CatalogSource {
+    /**
+     * Filter and score the in-memory catalog snapshot
+     */
+    SNAPSHOT,
+    /**
+     * Push the filters down to the database and score only the returned rows,
+     * for catalogs too large to keep in memory
+     */
+    DATABASE
+}
@@ -0,0 +1,57 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.CatalogVersion;
+import ai.carmatch.repository.CatalogVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Monotonically increasing catalog version stored in the database
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogVersionService {
+
+    private final CatalogVersionRepository catalogVersionRepository;
+
+    @PostConstruct
+    void ensureVersionRow() {
+        if (catalogVersionRepository.existsById(CatalogVersion.SINGLETON_ID)) {
+            return;
+        }
+        try {
+            catalogVersionRepository.saveAndFlush(new CatalogVersion(CatalogVersion.SINGLETON_ID, 0L));
+            log.info("Initialized catalog version");
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the row concurrently
+        }
+    }
+
+    /**
+     * Increment the catalog version as part of the caller's transaction.
+     * The row stays locked until that transaction commits, so versions are assigned in commit order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long bump() {
+        CatalogVersion row = catalogVersionRepository.findByIdForUpdate(CatalogVersion.SINGLETON_ID)
+                .orElseThrow(() -> new IllegalStateException("Catalog version row is missing"));
+        row.setVersion(row.getVersion() + 1);
+        return row.getVersion();
+    }
+
+    /**
+     * Latest committed catalog version
+     */
+    @Transactional(readOnly = true)
+    public long readCommitted() {
+        return catalogVersionRepository.findById(CatalogVersion.SINGLETON_ID)
+                .map(CatalogVersion::getVersion)
+                .orElse(0L);
+    }
+}
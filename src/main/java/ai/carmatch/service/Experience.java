@@ -0,0 +1,13 @@
+package ai.carmatch.service;
+
+/**
+ * Driving experience level of a preference profile
+ */
+enum Experience {
+    NOVICE, INTERMEDIATE, EXPERT;
+
+    static Experience of(String value) {
+        // Anything else is filtered and scored like an expert
+        return "novice".equals(value) ? NOVICE : "intermediate".equals(value) ? INTERMEDIATE : EXPERT;
+    }
+}
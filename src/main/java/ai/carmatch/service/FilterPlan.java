@@ -0,0 +1,208 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Recommendation filters of one request, compiled against a catalog snapshot.
+ * Preference strings are resolved to enums and brands to a bitmask over brand codes once,
+ * predicates every car passes are dropped, and the remaining ones are ordered from the most
+ * to the least selective using the match counts of the snapshot's {@link CatalogFilterIndex}.
+ */
+final class FilterPlan {
+
+    /**
+     * A single filtering rule
+     */
+    enum Predicate {
+        BUDGET, HORSE_POWER, COMPACT, FUEL_CONSUMPTION, BRAND
+    }
+
+    private static final FilterPlan NOTHING = new FilterPlan(0, null, new Predicate[0], new int[0], true);
+
+    private final double budget;
+    private final boolean[] brands;
+    private final Predicate[] predicates;
+    private final int[] matchCounts;
+    private final boolean matchesNothing;
+
+    private FilterPlan(double budget, boolean[] brands, Predicate[] predicates, int[] matchCounts,
+                       boolean matchesNothing) {
+        this.budget = budget;
+        this.brands = brands;
+        this.predicates = predicates;
+        this.matchCounts = matchCounts;
+        this.matchesNothing = matchesNothing;
+    }
+
+    /**
+     * Compile the filters for the given preferences against a snapshot
+     */
+    static FilterPlan compile(UserPreferences prefs, CarCatalogSnapshot catalog) {
+        CatalogFilterIndex index = catalog.filterIndex();
+        int n = catalog.size();
+        double budget = prefs.getBudget();
+
+        Predicate[] candidates = new Predicate[Predicate.values().length];
+        int[] counts = new int[candidates.length];
+        int size = 0;
+
+        candidates[size] = Predicate.BUDGET;
+        counts[size++] = index.countWithinBudget(budget);
+        // Experience filter: novice drivers get limited horsepower
+        if (Experience.of(prefs.getExperience()) == Experience.NOVICE) {
+            candidates[size] = Predicate.HORSE_POWER;
+            counts[size++] = index.lowHorsePowerCount();
+        }
+        // Use case filter: city use requires compact cars
+        if (UseCase.of(prefs.getUseCase()) == UseCase.CITY) {
+            candidates[size] = Predicate.COMPACT;
+            counts[size++] = index.compactCount();
+        }
+        // Fuel economy filter
+        if (prefs.getFuelEconomyPriority()) {
+            candidates[size] = Predicate.FUEL_CONSUMPTION;
+            counts[size++] = index.lowFuelConsumptionCount();
+        }
+        // Brand preferences filter (if specified)
+        boolean[] brands = null;
+        List<String> preferredBrands = prefs.getBrandPreferences();
+        if (preferredBrands != null && !preferredBrands.isEmpty()) {
+            brands = new boolean[catalog.brandCount()];
+            int matches = 0;
+            for (String brand : preferredBrands) {
+                int code = catalog.brandCodeOf(brand);
+                if (code >= 0 && !brands[code]) {
+                    brands[code] = true;
+                    matches += index.brandCount(code);
+                }
+            }
+            candidates[size] = Predicate.BRAND;
+            counts[size++] = matches;
+        }
+
+        // Drop predicates every car passes; a predicate no car passes empties the result
+        Integer[] order = new Integer[size];
+        int kept = 0;
+        for (int p = 0; p < size; p++) {
+            if (counts[p] == 0) {
+                return NOTHING;
+            }
+            if (counts[p] < n) {
+                order[kept++] = p;
+            }
+        }
+        Integer[] selective = Arrays.copyOf(order, kept);
+        Arrays.sort(selective, Comparator.comparingInt(p -> counts[p]));
+
+        Predicate[] predicates = new Predicate[kept];
+        int[] matchCounts = new int[kept];
+        for (int r = 0; r < kept; r++) {
+            predicates[r] = candidates[selective[r]];
+            matchCounts[r] = counts[selective[r]];
+        }
+        return new FilterPlan(budget, brands, predicates, matchCounts, false);
+    }
+
+    /**
+     * Whether the car at position {@code i} passes every predicate, checking the most selective first
+     */
+    boolean admits(CarCatalogSnapshot catalog, int i) {
+        if (matchesNothing) {
+            return false;
+        }
+        for (Predicate predicate : predicates) {
+            boolean passes = switch (predicate) {
+                case BUDGET -> catalog.price(i) <= budget;
+                case HORSE_POWER -> catalog.horsePower(i) <= CatalogFilterIndex.NOVICE_MAX_HORSE_POWER;
+                case COMPACT -> catalog.isCompact(i);
+                case FUEL_CONSUMPTION -> catalog.fuelConsumption(i) <= CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION;
+                case BRAND -> brands[catalog.brandCode(i)];
+            };
+            if (!passes) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Positions of all cars passing the plan
+     * The budget cutoff is a binary search over the price-sorted permutation and the remaining
+     * predicates are intersected as bitsets, most selective first; whichever side is smaller
+     * drives the iteration.
+     */
+    int[] select(CarCatalogSnapshot catalog) {
+        if (matchesNothing) {
+            return new int[0];
+        }
+        CatalogFilterIndex index = catalog.filterIndex();
+        int withinBudget = catalog.size();
+        BitSet required = null;
+        int requiredBound = catalog.size();
+        for (int r = 0; r < predicates.length; r++) {
+            switch (predicates[r]) {
+                case BUDGET -> withinBudget = matchCounts[r];
+                case HORSE_POWER -> required = intersect(required, index.lowHorsePower());
+                case COMPACT -> required = intersect(required, index.compact());
+                case FUEL_CONSUMPTION -> required = intersect(required, index.lowFuelConsumption());
+                case BRAND -> required = intersect(required, brandMask(catalog, index));
+            }
+            if (predicates[r] != Predicate.BUDGET) {
+                requiredBound = Math.min(requiredBound, matchCounts[r]);
+            }
+        }
+
+        if (required == null) {
+            int[] candidates = new int[withinBudget];
+            for (int rank = 0; rank < withinBudget; rank++) {
+                candidates[rank] = index.positionByPrice(rank);
+            }
+            return candidates;
+        }
+
+        if (withinBudget <= requiredBound) {
+            int[] candidates = new int[withinBudget];
+            int count = 0;
+            for (int rank = 0; rank < withinBudget; rank++) {
+                int i = index.positionByPrice(rank);
+                if (required.get(i)) {
+                    candidates[count++] = i;
+                }
+            }
+            return Arrays.copyOf(candidates, count);
+        }
+
+        boolean checkBudget = withinBudget < catalog.size();
+        int[] candidates = new int[required.cardinality()];
+        int count = 0;
+        for (int i = required.nextSetBit(0); i >= 0; i = required.nextSetBit(i + 1)) {
+            if (!checkBudget || catalog.price(i) <= budget) {
+                candidates[count++] = i;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private BitSet brandMask(CarCatalogSnapshot catalog, CatalogFilterIndex index) {
+        BitSet mask = new BitSet(catalog.size());
+        for (int code = 0; code < brands.length; code++) {
+            if (brands[code]) {
+                mask.or(index.brand(code));
+            }
+        }
+        return mask;
+    }
+
+    private static BitSet intersect(BitSet accumulated, BitSet rule) {
+        if (accumulated == null) {
+            return (BitSet) rule.clone();
+        }
+        accumulated.and(rule);
+        return accumulated;
+    }
+}
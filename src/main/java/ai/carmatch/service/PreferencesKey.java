@@ -0,0 +1,122 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.RecommendationCursor;
+import ai.carmatch.model.Car;
+import ai.carmatch.model.UserPreferences;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache key for a page of recommendations.
+ * Holds the preference fields in normalized form (enumerated strings as small codes,
+ * brands sorted and de-duplicated) with a precomputed hash, so equal preferences
+ * always produce equal keys without formatting a string per lookup.
+ */
+public final class PreferencesKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final List<String> EXPERIENCES = List.of("novice", "intermediate", "expert");
+    private static final List<String> USE_CASES = List.of("city", "highway", "mixed", "offroad");
+    private static final String[] NO_BRANDS = new String[0];
+    private static final byte NOVICE = 0;
+    private static final byte CITY = 0;
+
+    private final double budget;
+    private final byte experience;
+    private final byte useCase;
+    private final boolean fuelEconomyPriority;
+    private final String[] brands;
+    private final int limit;
+    private final RecommendationCursor after;
+    private final boolean compact;
+    private final int hash;
+
+    private PreferencesKey(double budget, byte experience, byte useCase, boolean fuelEconomyPriority,
+                           String[] brands, int limit, RecommendationCursor after, boolean compact) {
+        this.budget = budget;
+        this.experience = experience;
+        this.useCase = useCase;
+        this.fuelEconomyPriority = fuelEconomyPriority;
+        this.brands = brands;
+        this.limit = limit;
+        this.after = after;
+        this.compact = compact;
+
+        int h = Double.hashCode(budget);
+        h = 31 * h + experience;
+        h = 31 * h + useCase;
+        h = 31 * h + (fuelEconomyPriority ? 1 : 0);
+        h = 31 * h + Arrays.hashCode(brands);
+        h = 31 * h + limit;
+        h = 31 * h + Objects.hashCode(after);
+        h = 31 * h + (compact ? 1 : 0);
+        this.hash = h;
+    }
+
+    public static PreferencesKey of(UserPreferences prefs, int limit, RecommendationCursor after, boolean compact) {
+        String[] brands = prefs.getBrandPreferences() == null || prefs.getBrandPreferences().isEmpty()
+                ? NO_BRANDS
+                : prefs.getBrandPreferences().stream().distinct().sorted().toArray(String[]::new);
+        return new PreferencesKey(
+                prefs.getBudget(),
+                (byte) EXPERIENCES.indexOf(prefs.getExperience()),
+                (byte) USE_CASES.indexOf(prefs.getUseCase()),
+                prefs.getFuelEconomyPriority(),
+                brands,
+                limit,
+                after,
+                compact
+        );
+    }
+
+    /**
+     * Whether a car passes the recommendation filters for these preferences, meaning a
+     * change to that car can change the cached results
+     */
+    public boolean admits(Car car) {
+        if (car == null || car.getPrice() > budget) {
+            return false;
+        }
+        if (experience == NOVICE && car.getHorsePower() > CatalogFilterIndex.NOVICE_MAX_HORSE_POWER) {
+            return false;
+        }
+        if (useCase == CITY && !car.isCompact()) {
+            return false;
+        }
+        if (fuelEconomyPriority && car.getFuelConsumption() > CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION) {
+            return false;
+        }
+        return brands.length == 0 || Arrays.binarySearch(brands, car.getBrand()) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PreferencesKey key)) return false;
+        return hash == key.hash
+                && Double.compare(budget, key.budget) == 0
+                && experience == key.experience
+                && useCase == key.useCase
+                && fuelEconomyPriority == key.fuelEconomyPriority
+                && limit == key.limit
+                && compact == key.compact
+                && Arrays.equals(brands, key.brands)
+                && Objects.equals(after, key.after);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PreferencesKey(budget=" + budget + ", experience=" + experience + ", useCase=" + useCase
+                + ", fuelEconomyPriority=" + fuelEconomyPriority + ", brands=" + Arrays.toString(brands)
+                + ", limit=" + limit + ", after=" + after + ", compact=" + compact + ")";
+    }
+}
@@ -0,0 +1,95 @@
+package ai.carmatch.service;
+
+/**
+ * Incremental ranking of scored candidates for streaming.
+ * The candidates are arranged into a primitive max-heap in linear time, and each call to
+ * {@link #next()} pops the next best one, so the first result is available after O(n) work
+ * and the full order costs O(n + m log n) for m results taken, without sorting or allocating
+ * result objects up front. Ranking matches {@link TopKSelector}: score descending, then
+ * car id ascending.
+ */
+final class RankedCandidates {
+
+    private final double[] scores;
+    private final long[] ids;
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Rank the cars at {@code positions} with their {@code scores}; both arrays are taken over
+     */
+    RankedCandidates(CarCatalogSnapshot catalog, int[] positions, double[] scores) {
+        this.positions = positions;
+        this.scores = scores;
+        this.ids = new long[positions.length];
+        for (int k = 0; k < positions.length; k++) {
+            ids[k] = catalog.id(positions[k]);
+        }
+        this.size = positions.length;
+        for (int parent = (size >>> 1) - 1; parent >= 0; parent--) {
+            siftDown(parent);
+        }
+    }
+
+    boolean hasNext() {
+        return size > 0;
+    }
+
+    /**
+     * Remove the best remaining candidate; its catalog position and score are available
+     * through {@link #position()} and {@link #score()} until the next call
+     */
+    void next() {
+        swap(0, --size);
+        siftDown(0);
+    }
+
+    /**
+     * Catalog position of the candidate last returned by {@link #next()}
+     */
+    int position() {
+        return positions[size];
+    }
+
+    /**
+     * Score of the candidate last returned by {@link #next()}
+     */
+    double score() {
+        return scores[size];
+    }
+
+    private static boolean better(double scoreA, long idA, double scoreB, long idB) {
+        return scoreA > scoreB || (scoreA == scoreB && idA < idB);
+    }
+
+    private void siftDown(int parent) {
+        while (true) {
+            int best = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && better(scores[left], ids[left], scores[best], ids[best])) {
+                best = left;
+            }
+            if (right < size && better(scores[right], ids[right], scores[best], ids[best])) {
+                best = right;
+            }
+            if (best == parent) {
+                return;
+            }
+            swap(parent, best);
+            parent = best;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int position = positions[a];
+        positions[a] = positions[b];
+        positions[b] = position;
+    }
+}
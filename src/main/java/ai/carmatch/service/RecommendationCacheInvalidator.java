@@ -0,0 +1,110 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.RecommendationPage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Evicts cached recommendations once a catalog change is visible in the snapshot.
+ * Only entries whose preferences admit the old or new state of the changed car are
+ * evicted; a full catalog reload clears the cache.
+ * <p>
+ * Pages are stored through {@link #put} only if the catalog has not moved past the version
+ * they were computed from. That check and the store share a lock with eviction, so a page
+ * computed from an older snapshot can never land after the eviction meant to remove it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationCacheInvalidator {
+
+    static final String CACHE_NAME = "recommendations";
+
+    private final CacheManager cacheManager;
+    private final CarCatalogService carCatalogService;
+
+    // Latest catalog version whose changes have been evicted from the cache
+    private volatile long invalidatedVersion;
+
+    // Held shared while storing a page and exclusively while evicting
+    private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    void initInvalidatedVersion() {
+        // Nothing is cached yet, so the cache is consistent with the catalog loaded at startup
+        invalidatedVersion = carCatalogService.currentVersion();
+    }
+
+    /**
+     * Catalog version cached recommendations are known to be consistent with; it trails the
+     * snapshot version until the eviction for a newer snapshot has run
+     */
+    public long invalidatedVersion() {
+        return invalidatedVersion;
+    }
+
+    /**
+     * Cached page for {@code key}, or null
+     */
+    public RecommendationPage get(PreferencesKey key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        return cache != null ? cache.get(key, RecommendationPage.class) : null;
+    }
+
+    /**
+     * Cache a page computed from catalog version {@code version}, unless the catalog has
+     * moved on since, in which case its eviction may already have run
+     */
+    public void put(PreferencesKey key, RecommendationPage page, long version) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        evictionLock.readLock().lock();
+        try {
+            if (carCatalogService.currentVersion() == version) {
+                cache.put(key, page);
+            }
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        evictionLock.writeLock().lock();
+        try {
+            invalidate(event);
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+        invalidatedVersion = Math.max(invalidatedVersion, event.snapshot().version());
+    }
+
+    private void invalidate(CatalogRefreshedEvent event) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        CatalogChangedEvent change = event.change();
+        if (change == null
+                || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> entries)) {
+            cache.clear();
+            return;
+        }
+        int before = entries.asMap().size();
+        entries.asMap().keySet().removeIf(key -> !(key instanceof PreferencesKey preferences)
+                || preferences.admits(change.before())
+                || preferences.admits(change.after()));
+        log.debug("Catalog version {} evicted {} of {} cached recommendation pages",
+                change.version(), before - entries.asMap().size(), before);
+    }
+}
@@ -1,213 +1,434 @@
 package ai.carmatch.service;
 
-import ai.carmatch.model.Car;
+import ai.carmatch.dto.ReasonCode;
+import ai.carmatch.dto.RecommendationCursor;
+import ai.carmatch.dto.RecommendationPage;
 import ai.carmatch.dto.RecommendationResult;
 import ai.carmatch.model.UserPreferences;
 import ai.carmatch.repository.CarRepository;
+import ai.carmatch.repository.CarSpecifications;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RecommendationService {
     
+    private final CarCatalogService carCatalogService;
     private final CarRepository carRepository;
+    private final SegmentMaterializer segmentMaterializer;
+    private final RecommendationCacheInvalidator cacheInvalidator;
     
     /**
-     * Get car recommendations based on user preferences
-     * Results are cached in Redis using the user preferences as the key
+     * Number of recommendations returned when the caller does not ask for a specific page size
+     */
+    public static final int DEFAULT_LIMIT = 5;
+    
+    @Value("${app.recommendations.scoring.vectorized:true}")
+    private boolean vectorizedScoring;
+    
+    @Value("${app.recommendations.parallel.threshold:50000}")
+    private int parallelThreshold;
+    
+    @Value("${app.recommendations.parallel.partition-size:16384}")
+    private int partitionSize;
+    
+    @Value("${app.recommendations.parallel.pool-size:4}")
+    private int parallelPoolSize;
+    
+    private ScoringEngine scoringEngine;
+    
+    private ForkJoinPool scoringPool;
+    
+    /**
+     * Catalog version that recommendations served from now on are at least as new as,
+     * for validators such as ETags
+     */
+    public long catalogVersion() {
+        return cacheInvalidator.invalidatedVersion();
+    }
+    
+    @PostConstruct
+    void selectScoringEngine() {
+        scoringEngine = ScoringEngine.create(vectorizedScoring);
+        if (vectorizedScoring && scoringEngine instanceof ScalarScoringEngine) {
+            log.info("Vector API unavailable (start the JVM with --add-modules {}), using scalar scoring",
+                    ScoringEngine.VECTOR_MODULE);
+        }
+        log.info("Recommendation scoring engine: {}", scoringEngine.name());
+    }
+    
+    /**
+     * Dedicated, bounded pool for partitioned scoring, so large requests never borrow the
+     * common pool or more threads than configured from the servlet container's share of cores
+     */
+    @PostConstruct
+    void createScoringPool() {
+        if (parallelPoolSize > 1) {
+            scoringPool = new ForkJoinPool(parallelPoolSize, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("recommendation-scoring-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+    }
+    
+    @PreDestroy
+    void shutdownScoringPool() {
+        if (scoringPool != null) {
+            scoringPool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Get the top car recommendations based on user preferences
      */
-    @Cacheable(value = "recommendations", key = "#prefs.toString()")
     public List<RecommendationResult> getRecommendations(UserPreferences prefs) {
+        return getRecommendations(prefs, DEFAULT_LIMIT, null, false).getResults();
+    }
+    
+    /**
+     * Get one page of car recommendations based on user preferences
+     * Only the best {@code limit} candidates ranked after {@code after} are kept while scoring,
+     * so the whole candidate list is never materialized or sorted.
+     * In compact mode results carry {@link ReasonCode}s instead of an English explanation.
+     * Results are cached in a bounded Caffeine cache keyed by {@link PreferencesKey}, and only
+     * when the catalog did not change while they were computed
+     */
+    public RecommendationPage getRecommendations(UserPreferences prefs, int limit, RecommendationCursor after,
+                                                 boolean compact) {
+        PreferencesKey key = PreferencesKey.of(prefs, limit, after, compact);
+        RecommendationPage cached = cacheInvalidator.get(key);
+        if (cached != null) {
+            return cached;
+        }
         log.info("Generating recommendations for preferences: {}", prefs);
         
-        // Get all cars and apply filters
-        List<Car> allCars = carRepository.findAll();
-        List<Car> filteredCars = applyFilters(allCars, prefs);
+        // Read before any catalog data, so the page is at least as new as this version
+        long version = carCatalogService.currentVersion();
+        CarCatalogSnapshot catalog;
+        int[] filteredCars;
+        int matchCount = -1;
+        if (carCatalogService.isInMemory()) {
+            // Read the current catalog snapshot and apply filters, starting from the
+            // precomputed segment candidates when the request allows it
+            catalog = carCatalogService.current();
+            SegmentMaterializer.Candidates materialized = after == null
+                    ? segmentMaterializer.lookup(catalog, prefs, limit)
+                    : null;
+            if (materialized != null) {
+                filteredCars = materialized.positions();
+                matchCount = materialized.matchCount();
+            } else {
+                filteredCars = applyFilters(catalog, prefs);
+            }
+        } else {
+            catalog = loadMatchingCars(prefs);
+            filteredCars = IntStream.range(0, catalog.size()).toArray();
+        }
+        
+        // Score candidates, keeping only the best ones after the cursor; large candidate
+        // sets are split into partitions scored in parallel, each with its own top K
+        double[] scores = new double[filteredCars.length];
+        TopKSelector topK = scoringPool != null && filteredCars.length >= parallelThreshold
+                ? scoringPool.invoke(new ScoringTask(catalog, filteredCars, 0, filteredCars.length, prefs, after, limit, scores))
+                : scorePartition(catalog, filteredCars, 0, filteredCars.length, prefs, after, limit, scores);
+        List<RecommendationResult> recommendations = toResults(catalog, topK, prefs, compact);
         
-        // Calculate scores and generate recommendations
-        List<RecommendationResult> recommendations = filteredCars.stream()
-                .map(car -> createRecommendationResult(car, prefs))
-                .sorted((r1, r2) -> Double.compare(r2.getScore(), r1.getScore())) // Sort by score descending
-                .limit(5) // Return top 5
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (matchCount >= 0 ? matchCount > topK.size() : topK.hasMore()) {
+            int last = topK.size() - 1;
+            nextCursor = new RecommendationCursor(topK.score(last), topK.id(last)).encode();
+        }
         
         log.info("Generated {} recommendations", recommendations.size());
+        RecommendationPage page = new RecommendationPage(recommendations, nextCursor);
+        cacheInvalidator.put(key, page, version);
+        return page;
+    }
+    
+    /**
+     * Stream every matching car in rank order
+     * All candidates are scored up front into primitive arrays, then ranked incrementally:
+     * the first result is produced after a linear pass, and each result object is only
+     * built when the caller asks for it.
+     */
+    public Iterator<RecommendationResult> streamRecommendations(UserPreferences prefs, boolean compact) {
+        log.info("Streaming recommendations for preferences: {}", prefs);
+        
+        CarCatalogSnapshot catalog;
+        int[] filteredCars;
+        if (carCatalogService.isInMemory()) {
+            catalog = carCatalogService.current();
+            filteredCars = applyFilters(catalog, prefs);
+        } else {
+            catalog = loadMatchingCars(prefs);
+            filteredCars = IntStream.range(0, catalog.size()).toArray();
+        }
+        
+        double[] scores = new double[filteredCars.length];
+        scoringEngine.score(catalog, filteredCars, 0, filteredCars.length, prefs, scores);
+        RankedCandidates ranked = new RankedCandidates(catalog, filteredCars, scores);
+        
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ranked.hasNext();
+            }
+            
+            @Override
+            public RecommendationResult next() {
+                if (!ranked.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ranked.next();
+                return createRecommendationResult(catalog, ranked.position(), ranked.score(), prefs, compact);
+            }
+        };
+    }
+    
+    /**
+     * Let the database apply the filters and only load the matching rows
+     */
+    private CarCatalogSnapshot loadMatchingCars(UserPreferences prefs) {
+        return CarCatalogSnapshot.of(
+                carRepository.findAll(CarSpecifications.matchingPreferences(prefs), Sort.by("id")),
+                carCatalogService.currentVersion());
+    }
+    
+    /**
+     * Score {@code positions[from..to)} and select the best {@code limit} ranked after the cursor
+     */
+    private TopKSelector scorePartition(CarCatalogSnapshot catalog, int[] positions, int from, int to,
+                                        UserPreferences prefs, RecommendationCursor after, int limit,
+                                        double[] scores) {
+        scoringEngine.score(catalog, positions, from, to, prefs, scores);
+        TopKSelector topK = new TopKSelector(limit);
+        for (int k = from; k < to; k++) {
+            int i = positions[k];
+            if (after == null || after.admits(scores[k], catalog.id(i))) {
+                topK.offer(scores[k], catalog.id(i), i);
+            }
+        }
+        return topK;
+    }
+    
+    /**
+     * Get the top recommendations for many preference profiles at once
+     * The catalog is scanned a single time: each car is checked against every profile and
+     * offered to that profile's own top-K selector. Results follow the order of {@code profiles}.
+     */
+    public List<List<RecommendationResult>> getBatchRecommendations(List<UserPreferences> profiles, int limit,
+                                                                    boolean compact) {
+        log.info("Generating batch recommendations for {} profiles", profiles.size());
+        
+        if (!carCatalogService.isInMemory()) {
+            // Without an in-memory catalog each profile is its own database query
+            return profiles.stream()
+                    .map(prefs -> getRecommendations(prefs, limit, null, compact).getResults())
+                    .toList();
+        }
+        
+        CarCatalogSnapshot catalog = carCatalogService.current();
+        int count = profiles.size();
+        FilterPlan[] filters = new FilterPlan[count];
+        CarScoreTables.Terms[] terms = new CarScoreTables.Terms[count];
+        TopKSelector[] selectors = new TopKSelector[count];
+        for (int p = 0; p < count; p++) {
+            filters[p] = FilterPlan.compile(profiles.get(p), catalog);
+            terms[p] = catalog.scoreTables().terms(profiles.get(p));
+            selectors[p] = new TopKSelector(limit);
+        }
+        
+        for (int i = 0; i < catalog.size(); i++) {
+            for (int p = 0; p < count; p++) {
+                if (filters[p].admits(catalog, i)) {
+                    selectors[p].offer(terms[p].score(i), catalog.id(i), i);
+                }
+            }
+        }
+        
+        List<List<RecommendationResult>> results = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            results.add(toResults(catalog, selectors[p], profiles.get(p), compact));
+        }
+        return results;
+    }
+    
+    /**
+     * Rank the selected candidates and build results for the survivors only
+     */
+    private List<RecommendationResult> toResults(CarCatalogSnapshot catalog, TopKSelector topK, UserPreferences prefs,
+                                                 boolean compact) {
+        topK.rank();
+        List<RecommendationResult> recommendations = new ArrayList<>(topK.size());
+        for (int rank = 0; rank < topK.size(); rank++) {
+            recommendations.add(createRecommendationResult(catalog, topK.position(rank), topK.score(rank), prefs, compact));
+        }
         return recommendations;
     }
     
     /**
-     * Apply filtering rules based on user preferences
+     * Apply filtering rules based on user preferences, compiled into a {@link FilterPlan}
      */
-    private List<Car> applyFilters(List<Car> cars, UserPreferences prefs) {
-        return cars.stream()
-                .filter(car -> car.getPrice() <= prefs.getBudget()) // Budget filter
-                .filter(car -> {
-                    // Experience filter: novice drivers get limited horsepower
-                    if ("novice".equals(prefs.getExperience())) {
-                        return car.getHorsePower() <= 150;
-                    }
-                    return true;
-                })
-                .filter(car -> {
-                    // Use case filter: city use requires compact cars
-                    if ("city".equals(prefs.getUseCase())) {
-                        return car.isCompact();
-                    }
-                    return true;
-                })
-                .filter(car -> {
-                    // Fuel economy filter
-                    if (prefs.getFuelEconomyPriority()) {
-                        return car.getFuelConsumption() <= 7.0;
-                    }
-                    return true;
-                })
-                .filter(car -> {
-                    // Brand preferences filter (if specified)
-                    if (prefs.getBrandPreferences() != null && !prefs.getBrandPreferences().isEmpty()) {
-                        return prefs.getBrandPreferences().contains(car.getBrand());
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
+    private int[] applyFilters(CarCatalogSnapshot catalog, UserPreferences prefs) {
+        return FilterPlan.compile(prefs, catalog).select(catalog);
     }
     
     /**
-     * Create a recommendation result with score calculation
+     * Create a recommendation result for an already scored car
+     * The explanation is rendered from reason codes, and not at all in compact mode
      */
-    private RecommendationResult createRecommendationResult(Car car, UserPreferences prefs) {
-        double score = calculateScore(car, prefs);
-        String reason = generateReason(car, prefs);
+    private RecommendationResult createRecommendationResult(CarCatalogSnapshot catalog, int i, double score,
+                                                            UserPreferences prefs, boolean compact) {
+        int reasons = generateReasons(catalog, i, prefs);
         
         return new RecommendationResult(
-                car.getModel(),
-                reason,
+                catalog.model(i),
+                compact ? null : ReasonCode.describe(reasons),
                 score,
-                car.getBrand(),
-                car.getPrice(),
-                car.getYear(),
-                car.getHorsePower(),
-                car.getFuelConsumption(),
-                car.getFuelType(),
-                car.isCompact(),
-                car.getDrivetrainType(),
-                car.getColor()
+                catalog.brand(i),
+                catalog.price(i),
+                catalog.year(i),
+                catalog.horsePower(i),
+                catalog.fuelConsumption(i),
+                catalog.fuelType(i),
+                catalog.isCompact(i),
+                catalog.drivetrainType(i),
+                catalog.color(i),
+                compact ? ReasonCode.fromMask(reasons) : null
         );
     }
     
     /**
      * Calculate recommendation score (on a 0–100 scale (0 = worst, 100 = best))
+     * This is the reference formula; request scoring reads the same terms from {@link CarScoreTables}
+     * and every {@link ScoringEngine} must match it bit for bit.
      * Scoring factors:
      * - Price efficiency (lower price relative to budget = higher score)
      * - Fuel economy (lower consumption = higher score)
      * - Horsepower appropriateness for experience level
      * - Use case suitability
      */
-    private double calculateScore(Car car, UserPreferences prefs) {
+    static double calculateScore(CarCatalogSnapshot catalog, int i, UserPreferences prefs) {
         double score = 0.0;
         
         // Price efficiency score (0-40 points)
-        double priceRatio = car.getPrice() / prefs.getBudget();
+        double priceRatio = catalog.price(i) / prefs.getBudget();
         score += (1.0 - priceRatio) * 40;
         
         // Fuel economy score (0-30 points)
-        if (prefs.getFuelEconomyPriority()) {
-            double fuelScore = Math.max(0, (10.0 - car.getFuelConsumption()) / 10.0 * 30);
-            score += fuelScore;
-        } else {
-            // Still consider fuel economy but with lower weight
-            double fuelScore = Math.max(0, (15.0 - car.getFuelConsumption()) / 15.0 * 15);
-            score += fuelScore;
-        }
+        score += CarScoreTables.fuelScore(catalog.fuelConsumption(i), prefs.getFuelEconomyPriority());
         
         // Experience appropriateness score (0-20 points)
-        if ("novice".equals(prefs.getExperience())) {
-            if (car.getHorsePower() <= 100) {
-                score += 20;
-            } else if (car.getHorsePower() <= 150) {
-                score += 10;
-            }
-        } else if ("intermediate".equals(prefs.getExperience())) {
-            if (car.getHorsePower() >= 100 && car.getHorsePower() <= 250) {
-                score += 20;
-            } else {
-                score += 10;
-            }
-        } else { // expert
-            if (car.getHorsePower() >= 200) {
-                score += 20;
-            } else if (car.getHorsePower() >= 150) {
-                score += 15;
-            } else {
-                score += 5;
-            }
-        }
+        score += CarScoreTables.experiencePoints(catalog.horsePower(i), Experience.of(prefs.getExperience()));
         
         // Use case suitability score (0-10 points)
-        if ("city".equals(prefs.getUseCase()) && car.isCompact()) {
-            score += 10;
-        } else if ("highway".equals(prefs.getUseCase()) && car.getHorsePower() >= 150) {
-            score += 10;
-        } else if ("mixed".equals(prefs.getUseCase())) {
-            score += 5; // Neutral score for mixed use
-        }
+        score += CarScoreTables.useCasePoints(catalog.horsePower(i), catalog.isCompact(i), UseCase.of(prefs.getUseCase()));
         
         return Math.max(0, score); // Ensure non-negative score
     }
     
     /**
-     * Generate human-readable reason for the recommendation
+     * Generate the reasons for the recommendation as a {@link ReasonCode} bitmask
      */
-    private String generateReason(Car car, UserPreferences prefs) {
-        List<String> reasons = new ArrayList<>();
+    private int generateReasons(CarCatalogSnapshot catalog, int i, UserPreferences prefs) {
+        int reasons = 0;
         
         // Price reason
-        double priceRatio = (car.getPrice() / prefs.getBudget()) * 100;
+        double priceRatio = (catalog.price(i) / prefs.getBudget()) * 100;
         if (priceRatio < 50) {
-            reasons.add("excellent value for money");
+            reasons |= ReasonCode.EXCELLENT_VALUE.bit();
         } else if (priceRatio < 80) {
-            reasons.add("good value within budget");
+            reasons |= ReasonCode.GOOD_VALUE.bit();
         } else {
-            reasons.add("fits your budget");
+            reasons |= ReasonCode.FITS_BUDGET.bit();
         }
         
         // Fuel economy reason
-        if (prefs.getFuelEconomyPriority() && car.getFuelConsumption() <= 6.0) {
-            reasons.add("excellent fuel economy");
-        } else if (car.getFuelConsumption() <= 8.0) {
-            reasons.add("good fuel efficiency");
+        if (prefs.getFuelEconomyPriority() && catalog.fuelConsumption(i) <= 6.0) {
+            reasons |= ReasonCode.EXCELLENT_FUEL_ECONOMY.bit();
+        } else if (catalog.fuelConsumption(i) <= 8.0) {
+            reasons |= ReasonCode.GOOD_FUEL_EFFICIENCY.bit();
         }
         
         // Experience reason
-        if ("novice".equals(prefs.getExperience()) && car.getHorsePower() <= 120) {
-            reasons.add("perfect for new drivers");
-        } else if ("expert".equals(prefs.getExperience()) && car.getHorsePower() >= 200) {
-            reasons.add("powerful engine for experienced drivers");
+        if ("novice".equals(prefs.getExperience()) && catalog.horsePower(i) <= 120) {
+            reasons |= ReasonCode.NEW_DRIVER_FRIENDLY.bit();
+        } else if ("expert".equals(prefs.getExperience()) && catalog.horsePower(i) >= 200) {
+            reasons |= ReasonCode.POWERFUL_ENGINE.bit();
         }
         
         // Use case reason
-        if ("city".equals(prefs.getUseCase()) && car.isCompact()) {
-            reasons.add("compact size ideal for city driving");
-        } else if ("highway".equals(prefs.getUseCase()) && car.getHorsePower() >= 150) {
-            reasons.add("strong performance for highway driving");
+        if ("city".equals(prefs.getUseCase()) && catalog.isCompact(i)) {
+            reasons |= ReasonCode.CITY_COMPACT.bit();
+        } else if ("highway".equals(prefs.getUseCase()) && catalog.horsePower(i) >= 150) {
+            reasons |= ReasonCode.HIGHWAY_PERFORMANCE.bit();
         }
         
         // Brand preference reason
-        if (prefs.getBrandPreferences() != null && prefs.getBrandPreferences().contains(car.getBrand())) {
-            reasons.add("matches your preferred brand");
+        if (prefs.getBrandPreferences() != null && prefs.getBrandPreferences().contains(catalog.brand(i))) {
+            reasons |= ReasonCode.PREFERRED_BRAND.bit();
         }
         
-        if (reasons.isEmpty()) {
-            reasons.add("meets your basic requirements");
+        if (reasons == 0) {
+            reasons = ReasonCode.MEETS_REQUIREMENTS.bit();
         }
         
-        return String.join(", ", reasons);
+        return reasons;
+    }
+    
+    /**
+     * Splits a candidate range in halves until it fits a partition, then scores the partition;
+     * the partial top-K selectors are merged on the way back up
+     */
+    private final class ScoringTask extends RecursiveTask<TopKSelector> {
+        
+        private final CarCatalogSnapshot catalog;
+        private final int[] positions;
+        private final int from;
+        private final int to;
+        private final UserPreferences prefs;
+        private final RecommendationCursor after;
+        private final int limit;
+        private final double[] scores;
+        
+        ScoringTask(CarCatalogSnapshot catalog, int[] positions, int from, int to, UserPreferences prefs,
+                    RecommendationCursor after, int limit, double[] scores) {
+            this.catalog = catalog;
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+            this.prefs = prefs;
+            this.after = after;
+            this.limit = limit;
+            this.scores = scores;
+        }
+        
+        @Override
+        protected TopKSelector compute() {
+            if (to - from <= partitionSize) {
+                return scorePartition(catalog, positions, from, to, prefs, after, limit, scores);
+            }
+            int middle = (from + to) >>> 1;
+            ScoringTask right = new ScoringTask(catalog, positions, middle, to, prefs, after, limit, scores);
+            right.fork();
+            TopKSelector topK = new ScoringTask(catalog, positions, from, middle, prefs, after, limit, scores).compute();
+            topK.merge(right.join());
+            return topK;
+        }
     }
 }
@@ -0,0 +1,23 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+
+/**
+ * Scores one car at a time from the snapshot's precomputed score tables
+ */
+final class ScalarScoringEngine implements ScoringEngine {
+
+    @Override
+    public void score(CarCatalogSnapshot catalog, int[] positions, int from, int to, UserPreferences prefs,
+                      double[] scores) {
+        CarScoreTables.Terms terms = catalog.scoreTables().terms(prefs);
+        for (int k = from; k < to; k++) {
+            scores[k] = terms.score(positions[k]);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,38 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+
+/**
+ * Computes recommendation scores for a batch of catalog positions.
+ * Every implementation must produce scores bit-identical to
+ * {@link RecommendationService#calculateScore(CarCatalogSnapshot, int, UserPreferences)}.
+ */
+interface ScoringEngine {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The vectorized engine when requested and the Vector API is usable on this JVM and CPU,
+     * otherwise the scalar engine
+     */
+    static ScoringEngine create(boolean vectorized) {
+        if (vectorized && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return new VectorScoringEngine();
+            } catch (LinkageError | UnsupportedOperationException e) {
+                // Fall through to the scalar engine
+            }
+        }
+        return new ScalarScoringEngine();
+    }
+
+    /**
+     * Score the cars at {@code positions[from..to)} into {@code scores[from..to)}
+     */
+    void score(CarCatalogSnapshot catalog, int[] positions, int from, int to, UserPreferences prefs, double[] scores);
+
+    /**
+     * Short name used in logs
+     */
+    String name();
+}
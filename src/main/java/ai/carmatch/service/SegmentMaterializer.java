@@ -0,0 +1,393 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputes ranked candidate lists for every (experience, use case, fuel priority, budget bucket)
+ * segment of the preference space.
+ * <p>
+ * Within a budget bucket [lo, hi] a car's score only moves with the price term, so it is bounded by
+ * its score at budget lo and at budget hi. A car whose upper bound is below the K-th best lower bound
+ * of the cars affordable at lo can never reach the top K for any budget in the bucket and is dropped.
+ * A request then only rescores the surviving candidates at its exact budget, which yields the same
+ * top K as a full scan.
+ * <p>
+ * A single-car change is applied in place as it is published: scores do not depend on other cars,
+ * so only the segments that admit the car before or after the change, and within them only the
+ * buckets whose budget reaches its price, are recomputed; every other bucket just has its positions
+ * shifted. Bulk changes, and changes that do not follow the materialized snapshot, rebuild
+ * everything in the background.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SegmentMaterializer {
+
+    // Budget bounds enforced by validation on UserPreferences
+    static final double MIN_BUDGET = 1000;
+    static final double MAX_BUDGET = 200000;
+
+    private static final List<String> EXPERIENCES = List.of("novice", "intermediate", "expert");
+    private static final List<String> USE_CASES = List.of("city", "highway", "mixed", "offroad");
+
+    private final CarCatalogService carCatalogService;
+
+    @Value("${app.recommendations.materialization.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.recommendations.materialization.budget-bucket-width:5000}")
+    private double bucketWidth;
+
+    @Value("${app.recommendations.materialization.depth:20}")
+    private int depth;
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-materializer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private volatile Materialization materialization;
+
+    /**
+     * Materialized candidates for the request, already cut at its budget, or null when the request
+     * has to take the full path (brand preferences, limit above the materialized depth, or a
+     * materialization that does not match the snapshot being served)
+     */
+    Candidates lookup(CarCatalogSnapshot catalog, UserPreferences prefs, int limit) {
+        Materialization current = materialization;
+        if (current == null || current.catalog != catalog || limit > current.depth
+                || (prefs.getBrandPreferences() != null && !prefs.getBrandPreferences().isEmpty())) {
+            return null;
+        }
+        int experience = EXPERIENCES.indexOf(prefs.getExperience());
+        int useCase = USE_CASES.indexOf(prefs.getUseCase());
+        double budget = prefs.getBudget();
+        if (experience < 0 || useCase < 0 || budget < MIN_BUDGET || budget > MAX_BUDGET) {
+            return null;
+        }
+        Segment segment = current.segments[segmentIndex(experience, useCase, prefs.getFuelEconomyPriority())];
+        int[] bucket = segment.buckets[current.bucketOf(budget)];
+        int cut = 0;
+        while (cut < bucket.length && catalog.price(bucket[cut]) <= budget) {
+            cut++;
+        }
+        return new Candidates(Arrays.copyOf(bucket, cut), countAtMost(segment.sortedPrices, budget));
+    }
+
+    /**
+     * Candidates left after refinement and the number of cars in the segment within budget
+     */
+    record Candidates(int[] positions, int matchCount) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public synchronized void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        if (!enabled || !carCatalogService.isInMemory()) {
+            return;
+        }
+        Materialization current = materialization;
+        CatalogChangedEvent change = event.change();
+        if (current == null || change == null || current.catalog.version() != change.version() - 1) {
+            scheduleRebuild();
+            return;
+        }
+        long start = System.nanoTime();
+        Materialization updated = applyChange(current, event.snapshot(), change.carId());
+        if (updated == null) {
+            scheduleRebuild();
+            return;
+        }
+        materialization = updated;
+        log.debug("Applied change of car {} to materialized segments for catalog version {} in {} us",
+                change.carId(), change.version(), (System.nanoTime() - start) / 1_000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (!enabled || !carCatalogService.isInMemory()) {
+            return;
+        }
+        // Coalesce bursts of catalog changes into one rebuild of the latest snapshot
+        if (rebuildQueued.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild(carCatalogService.current());
+            });
+        }
+    }
+
+    private void rebuild(CarCatalogSnapshot catalog) {
+        long start = System.nanoTime();
+        int bucketCount = (int) Math.ceil((MAX_BUDGET - MIN_BUDGET) / bucketWidth);
+        Segment[] segments = new Segment[EXPERIENCES.size() * USE_CASES.size() * 2];
+        long candidates = 0;
+        for (int experience = 0; experience < EXPERIENCES.size(); experience++) {
+            for (int useCase = 0; useCase < USE_CASES.size(); useCase++) {
+                for (boolean fuelPriority : new boolean[]{false, true}) {
+                    Segment segment = buildSegment(catalog, experience, useCase, fuelPriority, bucketCount);
+                    segments[segmentIndex(experience, useCase, fuelPriority)] = segment;
+                    for (int[] bucket : segment.buckets) {
+                        candidates += bucket.length;
+                    }
+                }
+            }
+        }
+        publish(new Materialization(catalog, depth, bucketWidth, bucketCount, segments));
+        log.info("Materialized {} segments x {} budget buckets ({} candidates) for catalog version {} in {} ms",
+                segments.length, bucketCount, candidates, catalog.version(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replace the materialization unless it already reflects a newer snapshot, which a change
+     * applied while a background rebuild was running may have produced
+     */
+    private synchronized void publish(Materialization built) {
+        Materialization current = materialization;
+        if (current == null || current.catalog.version() <= built.catalog.version()) {
+            materialization = built;
+        }
+    }
+
+    /**
+     * Materialization for {@code catalog}, which differs from {@code current.catalog} only in the
+     * car {@code carId}; null when the two snapshots do not line up
+     */
+    private Materialization applyChange(Materialization current, CarCatalogSnapshot catalog, long carId) {
+        CarCatalogSnapshot previous = current.catalog;
+        int removed = previous.positionOf(carId);
+        int inserted = catalog.positionOf(carId);
+        if (catalog.size() != previous.size() - (removed >= 0 ? 1 : 0) + (inserted >= 0 ? 1 : 0)) {
+            return null;
+        }
+        PositionShift shift = new PositionShift(removed, inserted);
+        Segment[] segments = new Segment[current.segments.length];
+        for (int experience = 0; experience < EXPERIENCES.size(); experience++) {
+            for (int useCase = 0; useCase < USE_CASES.size(); useCase++) {
+                for (boolean fuelPriority : new boolean[]{false, true}) {
+                    int index = segmentIndex(experience, useCase, fuelPriority);
+                    Segment segment = current.segments[index];
+                    boolean wasMember = removed >= 0 && admits(previous, removed, experience, useCase, fuelPriority);
+                    boolean isMember = inserted >= 0 && admits(catalog, inserted, experience, useCase, fuelPriority);
+                    if (!wasMember && !isMember) {
+                        segments[index] = shift.isIdentity() ? segment : shift.apply(segment);
+                        continue;
+                    }
+                    // Buckets whose budget stays below both prices of the car cannot see it
+                    double cheapest = Math.min(wasMember ? previous.price(removed) : Double.POSITIVE_INFINITY,
+                            isMember ? catalog.price(inserted) : Double.POSITIVE_INFINITY);
+                    segments[index] = updateSegment(catalog, current, segment, shift, wasMember ? removed : -1,
+                            isMember ? inserted : -1, cheapest, experience, useCase, fuelPriority);
+                }
+            }
+        }
+        return new Materialization(catalog, current.depth, current.bucketWidth, current.bucketCount, segments);
+    }
+
+    private Segment updateSegment(CarCatalogSnapshot catalog, Materialization current, Segment segment,
+                                  PositionShift shift, int removed, int inserted, double cheapest,
+                                  int experience, int useCase, boolean fuelPriority) {
+        int[] members = new int[segment.members.length - (removed >= 0 ? 1 : 0) + (inserted >= 0 ? 1 : 0)];
+        int count = 0;
+        boolean placed = inserted < 0;
+        for (int member : segment.members) {
+            if (member == removed) {
+                continue;
+            }
+            int position = shift.apply(member);
+            if (!placed && byPrice(catalog, inserted, position) < 0) {
+                members[count++] = inserted;
+                placed = true;
+            }
+            members[count++] = position;
+        }
+        if (!placed) {
+            members[count] = inserted;
+        }
+        double[] sortedPrices = sortedPrices(catalog, members);
+
+        int[][] buckets = new int[current.bucketCount][];
+        for (int b = 0; b < current.bucketCount; b++) {
+            double low = MIN_BUDGET + b * current.bucketWidth;
+            double high = Math.min(low + current.bucketWidth, MAX_BUDGET);
+            buckets[b] = high < cheapest
+                    ? shift.apply(segment.buckets[b])
+                    : buildBucket(catalog, members, sortedPrices, low, high, experience, useCase, fuelPriority);
+        }
+        return new Segment(members, sortedPrices, buckets);
+    }
+
+    private Segment buildSegment(CarCatalogSnapshot catalog, int experience, int useCase, boolean fuelPriority,
+                                 int bucketCount) {
+        int[] members = IntStream.range(0, catalog.size())
+                .filter(i -> admits(catalog, i, experience, useCase, fuelPriority))
+                .boxed()
+                .sorted(Comparator.comparingDouble(catalog::price))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        double[] sortedPrices = sortedPrices(catalog, members);
+
+        int[][] buckets = new int[bucketCount][];
+        for (int b = 0; b < bucketCount; b++) {
+            double low = MIN_BUDGET + b * bucketWidth;
+            double high = Math.min(low + bucketWidth, MAX_BUDGET);
+            buckets[b] = buildBucket(catalog, members, sortedPrices, low, high, experience, useCase, fuelPriority);
+        }
+        return new Segment(members, sortedPrices, buckets);
+    }
+
+    /**
+     * Segment members that can reach the top K for some budget in [low, high], by price
+     */
+    private int[] buildBucket(CarCatalogSnapshot catalog, int[] members, double[] sortedPrices, double low,
+                              double high, int experience, int useCase, boolean fuelPriority) {
+        CarScoreTables.Terms atLow = catalog.scoreTables().terms(
+                new UserPreferences(low, EXPERIENCES.get(experience), USE_CASES.get(useCase), null, fuelPriority));
+        CarScoreTables.Terms atHigh = catalog.scoreTables().terms(
+                new UserPreferences(high, EXPERIENCES.get(experience), USE_CASES.get(useCase), null, fuelPriority));
+
+        // K-th best lower bound among cars affordable for every budget in the bucket
+        int affordable = countAtMost(sortedPrices, low);
+        double threshold = Double.NEGATIVE_INFINITY;
+        if (affordable >= depth) {
+            TopKSelector lowerBounds = new TopKSelector(depth);
+            for (int m = 0; m < affordable; m++) {
+                lowerBounds.offer(atLow.score(members[m]), m, m);
+            }
+            threshold = lowerBounds.rank().score(depth - 1);
+        }
+
+        int reachable = countAtMost(sortedPrices, high);
+        int[] kept = new int[reachable];
+        int count = 0;
+        for (int m = 0; m < reachable; m++) {
+            if (atHigh.score(members[m]) >= threshold) {
+                kept[count++] = members[m];
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    private static boolean admits(CarCatalogSnapshot catalog, int i, int experience, int useCase,
+                                  boolean fuelPriority) {
+        if ("novice".equals(EXPERIENCES.get(experience))
+                && catalog.horsePower(i) > CatalogFilterIndex.NOVICE_MAX_HORSE_POWER) {
+            return false;
+        }
+        if ("city".equals(USE_CASES.get(useCase)) && !catalog.isCompact(i)) {
+            return false;
+        }
+        return !fuelPriority || catalog.fuelConsumption(i) <= CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION;
+    }
+
+    /**
+     * Order of segment members: by price, then by position like the stable sort of a full build
+     */
+    private static int byPrice(CarCatalogSnapshot catalog, int a, int b) {
+        int order = Double.compare(catalog.price(a), catalog.price(b));
+        return order != 0 ? order : Integer.compare(a, b);
+    }
+
+    private static double[] sortedPrices(CarCatalogSnapshot catalog, int[] members) {
+        double[] sortedPrices = new double[members.length];
+        for (int m = 0; m < members.length; m++) {
+            sortedPrices[m] = catalog.price(members[m]);
+        }
+        return sortedPrices;
+    }
+
+    private static int countAtMost(double[] sortedPrices, double budget) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] <= budget) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int segmentIndex(int experience, int useCase, boolean fuelPriority) {
+        return (experience * USE_CASES.size() + useCase) * 2 + (fuelPriority ? 1 : 0);
+    }
+
+    /**
+     * Cars of one segment by ascending price, and per budget bucket the candidates (also by price)
+     */
+    private record Segment(int[] members, double[] sortedPrices, int[][] buckets) {
+    }
+
+    /**
+     * Maps positions of the previous snapshot to the next one, around the car removed from
+     * position {@code removed} and inserted at position {@code inserted} (-1 for none)
+     */
+    private record PositionShift(int removed, int inserted) {
+
+        boolean isIdentity() {
+            return removed == inserted;
+        }
+
+        int apply(int position) {
+            int shifted = removed >= 0 && position > removed ? position - 1 : position;
+            return inserted >= 0 && shifted >= inserted ? shifted + 1 : shifted;
+        }
+
+        int[] apply(int[] positions) {
+            if (isIdentity()) {
+                return positions;
+            }
+            int[] shifted = new int[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                shifted[i] = apply(positions[i]);
+            }
+            return shifted;
+        }
+
+        Segment apply(Segment segment) {
+            int[][] buckets = new int[segment.buckets.length][];
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] = apply(segment.buckets[b]);
+            }
+            return new Segment(apply(segment.members), segment.sortedPrices, buckets);
+        }
+    }
+
+    private record Materialization(CarCatalogSnapshot catalog, int depth, double bucketWidth, int bucketCount,
+                                   Segment[] segments) {
+
+        int bucketOf(double budget) {
+            int bucket = Math.min((int) ((budget - MIN_BUDGET) / bucketWidth), bucketCount - 1);
+            // The division may round up across a bucket boundary; the bucket must start at or below the budget
+            return MIN_BUDGET + bucket * bucketWidth > budget ? bucket - 1 : bucket;
+        }
+    }
+}
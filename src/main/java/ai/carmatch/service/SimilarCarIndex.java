@@ -0,0 +1,145 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.repository.CarRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * "Similar cars" search backed by a {@link CarFeatureTree}.
+ * The tree is rebuilt in the background after catalog changes, with bursts coalesced into one
+ * rebuild. Until a rebuild lands, the cars changed since the tree was built are skipped in the
+ * tree and compared directly from the current snapshot, so answers reflect every committed
+ * local change without waiting for the rebuild. A bulk change or full reload replaces too many
+ * cars for that, so the thread publishing it builds a new tree right away; until it is swapped
+ * in, searches keep using the previous one. Searches never build a tree except for the very first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SimilarCarIndex {
+
+    private final CarCatalogService carCatalogService;
+    private final CarRepository carRepository;
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "similar-cars-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    // Catalog version of the latest change to each car not yet reflected in the tree
+    private final Map<Long, Long> changedCars = new ConcurrentHashMap<>();
+
+    // Only ever replaced by a tree built from a newer snapshot
+    private final AtomicReference<CarFeatureTree> tree = new AtomicReference<>();
+
+    /**
+     * The {@code k} cars closest to the given car, nearest first, or empty when the car does not exist
+     */
+    public Optional<List<Car>> findSimilar(long carId, int k) {
+        CarFeatureTree current = tree();
+        CarCatalogSnapshot base = current.catalog();
+        CarCatalogSnapshot catalog = carCatalogService.isInMemory() ? carCatalogService.current() : base;
+        int position = catalog.positionOf(carId);
+        if (position < 0) {
+            return Optional.empty();
+        }
+
+        Set<Long> changed = catalog == base ? Set.of() : changedCars.entrySet().stream()
+                .filter(entry -> entry.getValue() > base.version())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+
+        double[] query = current.normalize(catalog, position);
+        String fuelType = catalog.fuelType(position);
+        String drivetrain = catalog.drivetrainType(position);
+        TopKSelector nearest = new TopKSelector(k);
+        current.nearest(query, fuelType, drivetrain, nearest, id -> id == carId || changed.contains(id));
+        for (long id : changed) {
+            int i = catalog.positionOf(id);
+            if (id != carId && i >= 0) {
+                double distance = CarFeatureTree.distance(query, fuelType, drivetrain,
+                        current.normalize(catalog, i), 0, catalog.fuelType(i), catalog.drivetrainType(i));
+                nearest.offer(-distance, id, i);
+            }
+        }
+
+        nearest.rank();
+        List<Car> similar = new ArrayList<>(nearest.size());
+        for (int rank = 0; rank < nearest.size(); rank++) {
+            int i = catalog.positionOf(nearest.id(rank));
+            if (i >= 0) {
+                similar.add(catalog.car(i));
+            }
+        }
+        return Optional.of(similar);
+    }
+
+    @EventListener
+    public void onCatalogRefreshed(CatalogRefreshedEvent event) {
+        if (event.change() == null) {
+            rebuild();
+            return;
+        }
+        changedCars.merge(event.change().carId(), event.change().version(), Math::max);
+        // Coalesce bursts of catalog changes into one rebuild of the latest catalog
+        if (rebuildQueued.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private CarFeatureTree tree() {
+        CarFeatureTree current = tree.get();
+        return current != null ? current : rebuild();
+    }
+
+    /**
+     * Build a tree from the latest catalog and swap it in unless a newer one got there first;
+     * concurrent builds are harmless, so no lock is held while building
+     */
+    private CarFeatureTree rebuild() {
+        long start = System.nanoTime();
+        CarCatalogSnapshot catalog = carCatalogService.isInMemory()
+                ? carCatalogService.current()
+                : CarCatalogSnapshot.of(carRepository.findAll(Sort.by("id")), carCatalogService.currentVersion());
+        CarFeatureTree current = tree.get();
+        if (current != null && current.catalog() == catalog) {
+            return current;
+        }
+        CarFeatureTree built = new CarFeatureTree(catalog);
+        CarFeatureTree published = tree.accumulateAndGet(built, (existing, candidate) ->
+                existing == null || existing.catalog().version() <= candidate.catalog().version() ? candidate : existing);
+        long version = published.catalog().version();
+        changedCars.values().removeIf(changed -> changed <= version);
+        log.info("Similar cars index rebuilt with {} cars at version {} in {} ms",
+                catalog.size(), catalog.version(), (System.nanoTime() - start) / 1_000_000);
+        return published;
+    }
+}
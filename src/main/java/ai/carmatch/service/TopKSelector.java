@@ -0,0 +1,153 @@
+package ai.carmatch.service;
+
+/**
+ * Bounded selection of the K best-scoring catalog positions.
+ * Candidates live in a primitive min-heap whose root is the worst kept candidate, so
+ * selection costs O(n log K) and never allocates per candidate. Ranking is score
+ * descending, then car id ascending, which keeps pages stable across requests.
+ */
+final class TopKSelector {
+
+    private final int k;
+    private final double[] scores;
+    private final long[] ids;
+    private final int[] positions;
+    private int size;
+    private long offered;
+    private boolean ranked;
+
+    TopKSelector(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.scores = new double[k];
+        this.ids = new long[k];
+        this.positions = new int[k];
+    }
+
+    /**
+     * Offer a candidate; it is kept only if it ranks among the best K seen so far
+     */
+    void offer(double score, long id, int position) {
+        offered++;
+        if (size < k) {
+            scores[size] = score;
+            ids[size] = id;
+            positions[size] = position;
+            siftUp(size++);
+        } else if (worse(scores[0], ids[0], score, id)) {
+            scores[0] = score;
+            ids[0] = id;
+            positions[0] = position;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Fold another selector's candidates into this one
+     */
+    void merge(TopKSelector other) {
+        for (int r = 0; r < other.size; r++) {
+            offer(other.scores[r], other.ids[r], other.positions[r]);
+        }
+        offered += other.offered - other.size;
+    }
+
+    /**
+     * Sort the kept candidates best first; accessors below are valid afterwards
+     */
+    TopKSelector rank() {
+        if (!ranked) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            ranked = true;
+        }
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether K candidates are kept, so a new one must beat {@link #worstScore()}
+     */
+    boolean isFull() {
+        return size == k;
+    }
+
+    /**
+     * Score of the worst kept candidate; only valid before {@link #rank()}
+     */
+    double worstScore() {
+        return scores[0];
+    }
+
+    /**
+     * Whether more candidates were offered than could be kept
+     */
+    boolean hasMore() {
+        return offered > size;
+    }
+
+    double score(int rank) {
+        return scores[rank];
+    }
+
+    long id(int rank) {
+        return ids[rank];
+    }
+
+    int position(int rank) {
+        return positions[rank];
+    }
+
+    private static boolean worse(double scoreA, long idA, double scoreB, long idB) {
+        return scoreA < scoreB || (scoreA == scoreB && idA > idB);
+    }
+
+    private void siftUp(int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (!worse(scores[child], ids[child], scores[parent], ids[parent])) {
+                return;
+            }
+            swap(child, parent);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int parent, int limit) {
+        while (true) {
+            int worst = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < limit && worse(scores[left], ids[left], scores[worst], ids[worst])) {
+                worst = left;
+            }
+            if (right < limit && worse(scores[right], ids[right], scores[worst], ids[worst])) {
+                worst = right;
+            }
+            if (worst == parent) {
+                return;
+            }
+            swap(parent, worst);
+            parent = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int position = positions[a];
+        positions[a] = positions[b];
+        positions[b] = position;
+    }
+}
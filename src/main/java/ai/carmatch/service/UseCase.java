@@ -0,0 +1,18 @@
+package ai.carmatch.service;
+
+/**
+ * Intended use of the car in a preference profile; OTHER covers values without a rule
+ */
+enum UseCase {
+    CITY, HIGHWAY, MIXED, OFFROAD, OTHER;
+
+    static UseCase of(String value) {
+        return switch (value == null ? "" : value) {
+            case "city" -> CITY;
+            case "highway" -> HIGHWAY;
+            case "mixed" -> MIXED;
+            case "offroad" -> OFFROAD;
+            default -> OTHER;
+        };
+    }
+}
@@ -1,20 +1,34 @@
 package ai.carmatch.service;
 
+import ai.carmatch.dto.SavedPreferences;
 import ai.carmatch.dto.UserProfileResponse;
 import ai.carmatch.dto.UserRegistrationRequest;
+import ai.carmatch.dto.UserStatus;
 import ai.carmatch.dto.UserPreferencesUpdateRequest;
 import ai.carmatch.model.User;
 import ai.carmatch.model.UserPreferences;
 import ai.carmatch.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,6 +39,37 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     
+    // Bounds how long another node's preference update can go unnoticed
+    @Value("${app.users.preferences-cache.expire-after-write:30s}")
+    private Duration preferencesCacheExpiry;
+    
+    // Bounds how long another node's account deletion or disabling can go unnoticed by token authentication
+    @Value("${app.users.status-cache.expire-after-write:60s}")
+    private Duration statusCacheExpiry;
+    
+    private Cache<String, SavedPreferences> savedPreferences;
+    
+    private LoadingCache<String, Optional<UserStatus>> userStatuses;
+    
+    @PostConstruct
+    void createPreferencesCache() {
+        savedPreferences = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(preferencesCacheExpiry)
+                .build();
+    }
+    
+    @PostConstruct
+    void createUserStatusCache() {
+        // Active users are reloaded in the background halfway through the expiry, so requests never wait on it
+        userStatuses = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .refreshAfterWrite(statusCacheExpiry.dividedBy(2))
+                .expireAfterWrite(statusCacheExpiry)
+                .build(username -> userRepository.findByUsername(username)
+                        .map(user -> new UserStatus(user.getId(), user.isEnabled())));
+    }
+    
     /**
      * Register a new user
      */
@@ -81,6 +126,45 @@ public class UserService implements UserDetailsService {
         return UserProfileResponse.fromUser(user);
     }
     
+    /**
+     * Get a user's saved preferences and their revision, cached so repeated reads skip the database
+     * Changes made on this node are visible immediately, changes made elsewhere once the entry expires
+     */
+    @Transactional(readOnly = true)
+    public SavedPreferences getSavedPreferences(String username) {
+        return savedPreferences.get(username, name -> {
+            User user = userRepository.findByUsernameWithPreferences(name)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            UserPreferences saved = user.getPreferences();
+            if (saved == null) {
+                return new SavedPreferences(user.getId(), null, 0L);
+            }
+            UserPreferences copy = new UserPreferences(saved.getBudget(), saved.getExperience(), saved.getUseCase(),
+                    saved.getBrandPreferences() != null ? new ArrayList<>(saved.getBrandPreferences()) : null,
+                    saved.getFuelEconomyPriority());
+            long revision = saved.getRevision() != null ? saved.getRevision() : 0L;
+            copy.setRevision(revision);
+            return new SavedPreferences(user.getId(), copy, revision);
+        });
+    }
+    
+    /**
+     * Get saved preferences for many users by ID
+     * Users that do not exist or have no preferences are absent from the result
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, UserPreferences> getPreferencesByUserIds(Collection<Long> userIds) {
+        log.info("Getting preferences for {} users", userIds.size());
+        
+        Map<Long, UserPreferences> preferences = new HashMap<>();
+        for (User user : userRepository.findAllByIdWithPreferences(userIds)) {
+            if (user.getPreferences() != null) {
+                preferences.put(user.getId(), user.getPreferences());
+            }
+        }
+        return preferences;
+    }
+    
     /**
      * Update user preferences
      */
@@ -105,9 +189,11 @@ public class UserService implements UserDetailsService {
         preferences.setUseCase(request.getUseCase());
         preferences.setBrandPreferences(request.getBrandPreferences());
         preferences.setFuelEconomyPriority(request.getFuelEconomyPriority());
+        preferences.setRevision(preferences.getRevision() != null ? preferences.getRevision() + 1 : 1L);
         
         // Save user with updated preferences
         User savedUser = userRepository.save(user);
+        evictSavedPreferences(username);
         log.info("Preferences updated successfully for user: {}", username);
         
         return UserProfileResponse.fromUser(savedUser);
@@ -149,9 +235,31 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         userRepository.delete(user);
+        evictSavedPreferences(username);
+        evictUserStatus(username);
         log.info("User deleted successfully: {}", username);
     }
     
+    /**
+     * Enable or disable an account; tokens of a disabled account stop authenticating on this node once the change commits
+     */
+    @Transactional
+    public void setUserEnabled(String username, boolean enabled) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        user.setEnabled(enabled);
+        evictUserStatus(username);
+        log.info("User {} {}", username, enabled ? "enabled" : "disabled");
+    }
+    
+    /**
+     * Id and enabled flag of an account, empty if it does not exist; cached so token
+     * authentication does not query the database on every request
+     */
+    public Optional<UserStatus> getUserStatus(String username) {
+        return userStatuses.get(username);
+    }
+    
     /**
      * Check if user exists by username
      */
@@ -173,6 +281,33 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
     
+    /**
+     * Drop the cached preferences now and again after commit, so a read racing the
+     * transaction cannot put the old row back
+     */
+    private void evictSavedPreferences(String username) {
+        evictNowAndAfterCommit(savedPreferences, username);
+    }
+    
+    /**
+     * Drop the cached account status the same way, so the next request reloads it
+     */
+    private void evictUserStatus(String username) {
+        evictNowAndAfterCommit(userStatuses, username);
+    }
+    
+    private static void evictNowAndAfterCommit(Cache<String, ?> cache, String username) {
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+    
     /**
      * Load user by username for Spring Security authentication
      */
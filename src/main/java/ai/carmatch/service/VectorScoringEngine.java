@@ -0,0 +1,53 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.UserPreferences;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scores several cars per instruction with the incubating Vector API.
+ * The budget term and the precomputed {@link CarScoreTables} rows are gathered through the
+ * position list and added lane-wise. Each lane performs the same IEEE operations in the same
+ * order as the scalar formula, so scores are bit-identical; the tail that does not fill a
+ * vector is scored one car at a time.
+ * <p>
+ * Only instantiate this class through {@link ScoringEngine#create(boolean)}; it links against
+ * {@code jdk.incubator.vector}, which needs {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorScoringEngine implements ScoringEngine {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorScoringEngine() {
+        if (DOUBLES.length() < 2) {
+            throw new UnsupportedOperationException("No SIMD support for doubles on this CPU");
+        }
+    }
+
+    @Override
+    public void score(CarCatalogSnapshot catalog, int[] positions, int from, int to, UserPreferences prefs,
+                      double[] scores) {
+        CarScoreTables.Terms terms = catalog.scoreTables().terms(prefs);
+        double budget = terms.budget();
+
+        DoubleVector zero = DoubleVector.zero(DOUBLES);
+        int bound = from + DOUBLES.loopBound(to - from);
+        int k = from;
+        for (; k < bound; k += DOUBLES.length()) {
+            DoubleVector price = DoubleVector.fromArray(DOUBLES, terms.prices(), 0, positions, k);
+            DoubleVector score = zero.add(price.div(budget).neg().add(1.0).mul(40.0));
+            score = score.add(DoubleVector.fromArray(DOUBLES, terms.fuelScores(), 0, positions, k));
+            score = score.add(DoubleVector.fromArray(DOUBLES, terms.experiencePoints(), 0, positions, k));
+            score = score.add(DoubleVector.fromArray(DOUBLES, terms.useCasePoints(), 0, positions, k));
+            score.max(0.0).intoArray(scores, k);
+        }
+        for (; k < to; k++) {
+            scores[k] = terms.score(positions[k]);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + DOUBLES.length() + " lanes)";
+    }
+}
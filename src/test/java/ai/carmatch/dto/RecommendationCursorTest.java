@@ -0,0 +1,56 @@
+package ai.carmatch.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecommendationCursorTest {
+
+	@Test
+	void roundTripsThroughItsToken() {
+		for (RecommendationCursor cursor : new RecommendationCursor[]{
+				new RecommendationCursor(73.125, 42),
+				new RecommendationCursor(0.0, 1),
+				new RecommendationCursor(-0.0, Long.MAX_VALUE),
+				new RecommendationCursor(100.0 / 3, 0),
+				new RecommendationCursor(Double.MIN_VALUE, 9)}) {
+			String token = cursor.encode();
+			assertTrue(token.matches("[A-Za-z0-9_-]+"), "token must be URL safe: " + token);
+			RecommendationCursor decoded = RecommendationCursor.decode(token);
+			assertEquals(Double.doubleToRawLongBits(cursor.score()), Double.doubleToRawLongBits(decoded.score()));
+			assertEquals(cursor.carId(), decoded.carId());
+		}
+	}
+
+	@Test
+	void decodesMissingTokenAsFirstPage() {
+		assertNull(RecommendationCursor.decode(null));
+		assertNull(RecommendationCursor.decode(" "));
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThrows(IllegalArgumentException.class, () -> RecommendationCursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> RecommendationCursor.decode("AAAA"));
+		byte[] nan = ByteBuffer.allocate(16).putDouble(Double.NaN).putLong(1).array();
+		assertThrows(IllegalArgumentException.class,
+				() -> RecommendationCursor.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(nan)));
+	}
+
+	@Test
+	void admitsOnlyCandidatesRankedAfterIt() {
+		RecommendationCursor cursor = new RecommendationCursor(50.0, 10);
+		assertTrue(cursor.admits(49.9, 1));
+		assertTrue(cursor.admits(50.0, 11));
+		assertFalse(cursor.admits(50.0, 10));
+		assertFalse(cursor.admits(50.0, 9));
+		assertFalse(cursor.admits(50.1, 99));
+	}
+}
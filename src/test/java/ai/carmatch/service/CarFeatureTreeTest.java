@@ -0,0 +1,125 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CarFeatureTreeTest {
+
+	private static final String[] FUEL_TYPES = {"petrol", "diesel", "electric"};
+	private static final String[] DRIVETRAINS = {"FWD", "RWD", "AWD"};
+
+	private static final AtomicLong SEED = new AtomicLong(20240701L);
+
+	private record Neighbor(long id, double distance) {
+	}
+
+	@RepeatedTest(40)
+	void nearestMatchesABruteForceScan() {
+		Random random = new Random(SEED.getAndIncrement());
+		CarCatalogSnapshot catalog = randomCatalog(random, 1 + random.nextInt(500));
+		CarFeatureTree tree = new CarFeatureTree(catalog);
+
+		for (int round = 0; round < 30; round++) {
+			int query = random.nextInt(catalog.size());
+			// k beyond the catalog size must return every other car
+			int k = random.nextInt(5) == 0 ? catalog.size() + 1 + random.nextInt(5) : 1 + random.nextInt(25);
+			assertNearest(catalog, tree, query, k);
+		}
+	}
+
+	@Test
+	void catalogsWithRepeatedAndConstantFeaturesStillMatch() {
+		// Identical cars apart from id and categories: every scaled dimension has zero range
+		Random random = new Random(11);
+		List<Car> cars = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			cars.add(new Car((long) i + 1, "Kia", "Model" + i, 2020, 25000, 120, 6.5,
+					FUEL_TYPES[random.nextInt(FUEL_TYPES.length)], true, DRIVETRAINS[random.nextInt(DRIVETRAINS.length)], "red"));
+		}
+		CarCatalogSnapshot catalog = CarCatalogSnapshot.of(cars, 1L);
+		CarFeatureTree tree = new CarFeatureTree(catalog);
+		for (int query = 0; query < catalog.size(); query += 7) {
+			assertNearest(catalog, tree, query, 10);
+		}
+	}
+
+	@Test
+	void categoryMismatchesAddAFixedPenalty() {
+		double[] point = {0.5, 0.5, 0.5, 0.5, 1.0};
+		assertEquals(0.0, CarFeatureTree.distance(point, "petrol", "FWD", point, 0, "petrol", "FWD"));
+		assertEquals(1.0, CarFeatureTree.distance(point, "petrol", "FWD", point, 0, "diesel", "FWD"));
+		assertEquals(1.0, CarFeatureTree.distance(point, "petrol", "FWD", point, 0, "petrol", "AWD"));
+		assertEquals(2.0, CarFeatureTree.distance(point, "petrol", "FWD", point, 0, "diesel", "AWD"));
+		assertEquals(1.0, CarFeatureTree.distance(point, null, "FWD", point, 0, "petrol", "FWD"));
+	}
+
+	private static void assertNearest(CarCatalogSnapshot catalog, CarFeatureTree tree, int query, int k) {
+		long queryId = catalog.id(query);
+		double[] vector = tree.normalize(catalog, query);
+		String fuelType = catalog.fuelType(query);
+		String drivetrain = catalog.drivetrainType(query);
+
+		TopKSelector nearest = new TopKSelector(k);
+		tree.nearest(vector, fuelType, drivetrain, nearest, id -> id == queryId);
+		nearest.rank();
+
+		List<Neighbor> expected = IntStream.range(0, catalog.size())
+				.filter(i -> i != query)
+				.mapToObj(i -> new Neighbor(catalog.id(i), bruteForceDistance(tree, catalog, query, i)))
+				.sorted(Comparator.comparingDouble(Neighbor::distance).thenComparingLong(Neighbor::id))
+				.limit(k)
+				.toList();
+
+		assertEquals(expected.size(), nearest.size(), "neighbors of car " + queryId);
+		for (int rank = 0; rank < nearest.size(); rank++) {
+			assertTrue(nearest.id(rank) != queryId, "query car returned as its own neighbor");
+			assertEquals(expected.get(rank).id(), nearest.id(rank), "id at rank " + rank + " for car " + queryId);
+			assertEquals(expected.get(rank).distance(), -nearest.score(rank), 1e-12);
+		}
+	}
+
+	/**
+	 * Squared distance computed directly, with the categorical penalty, without the tree
+	 */
+	private static double bruteForceDistance(CarFeatureTree tree, CarCatalogSnapshot catalog, int a, int b) {
+		double[] x = tree.normalize(catalog, a);
+		double[] y = tree.normalize(catalog, b);
+		double distance = 0.0;
+		for (int d = 0; d < CarFeatureTree.DIMENSIONS; d++) {
+			distance += (x[d] - y[d]) * (x[d] - y[d]);
+		}
+		if (!Objects.equals(catalog.fuelType(a), catalog.fuelType(b))) {
+			distance += 1.0;
+		}
+		if (!Objects.equals(catalog.drivetrainType(a), catalog.drivetrainType(b))) {
+			distance += 1.0;
+		}
+		return distance;
+	}
+
+	private static CarCatalogSnapshot randomCatalog(Random random, int size) {
+		List<Car> cars = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			// Coarse values give plenty of equal coordinates and distance ties
+			double price = random.nextBoolean() ? 5000 * (1 + random.nextInt(20)) : 3000 + random.nextDouble() * 150000;
+			int horsePower = random.nextBoolean() ? 50 * (1 + random.nextInt(8)) : 40 + random.nextInt(500);
+			double fuelConsumption = random.nextBoolean() ? 1 + random.nextInt(15) : 2 + random.nextDouble() * 18;
+			cars.add(new Car((long) i + 1, "Brand" + random.nextInt(5), "Model" + i, 1995 + random.nextInt(30),
+					price, horsePower, fuelConsumption, FUEL_TYPES[random.nextInt(FUEL_TYPES.length)],
+					random.nextBoolean(), DRIVETRAINS[random.nextInt(DRIVETRAINS.length)], "red"));
+		}
+		return CarCatalogSnapshot.of(cars, 1L);
+	}
+}
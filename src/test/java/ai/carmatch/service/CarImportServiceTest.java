@@ -0,0 +1,202 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.CarImportResult;
+import ai.carmatch.model.Car;
+import ai.carmatch.repository.CarRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class CarImportServiceTest {
+
+	private static final String HEADER =
+			"brand,model,year,price,horsePower,fuelConsumption,fuelType,compact,drivetrainType,color";
+
+	private final CarRepository carRepository = mock(CarRepository.class);
+	private final CatalogVersionService catalogVersionService = mock(CatalogVersionService.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final EntityManager entityManager = mock(EntityManager.class);
+	private final Query stampQuery = mock(Query.class);
+	private CarImportService importService;
+
+	@BeforeEach
+	void createService() {
+		importService = new CarImportService(carRepository, catalogVersionService, eventPublisher, new ObjectMapper());
+		ReflectionTestUtils.setField(importService, "entityManager", entityManager);
+		ReflectionTestUtils.setField(importService, "batchSize", 2);
+		ReflectionTestUtils.setField(importService, "maxReportedErrors", 100);
+		when(entityManager.createQuery(anyString())).thenReturn(stampQuery);
+		when(stampQuery.setParameter(anyString(), any())).thenReturn(stampQuery);
+		when(catalogVersionService.bump()).thenReturn(42L);
+	}
+
+	@Test
+	void splitsPlainAndEmptyFields() {
+		assertEquals(List.of("a", "b", "c"), CarImportService.splitCsv("a,b,c"));
+		assertEquals(List.of("", "b", ""), CarImportService.splitCsv(",b,"));
+		assertEquals(List.of(""), CarImportService.splitCsv(""));
+	}
+
+	@Test
+	void splitsQuotedFieldsWithEmbeddedCommasAndQuotes() {
+		assertEquals(List.of("Rolls, Royce", "Ghost"), CarImportService.splitCsv("\"Rolls, Royce\",Ghost"));
+		assertEquals(List.of("the \"Beetle\"", "x"), CarImportService.splitCsv("\"the \"\"Beetle\"\"\",x"));
+		assertEquals(List.of("", "\""), CarImportService.splitCsv("\"\",\"\"\"\""));
+	}
+
+	@Test
+	void rejectsUnterminatedQuotedField() {
+		assertThrows(IllegalArgumentException.class, () -> CarImportService.splitCsv("\"Rolls, Royce,Ghost"));
+	}
+
+	@Test
+	void importsValidRowsAndReportsRejectedOnes() throws IOException {
+		CarImportResult result = importCsv(HEADER,
+				"\"Rolls, Royce\",\"Ghost \"\"II\"\"\",2021,300000,563,15.2,petrol,false,AWD,black",
+				"Kia,Rio,20x1,15000,100,5.5,petrol,true,FWD,red",
+				"Kia,Rio,2020,-1,100,5.5,petrol,true,FWD,red",
+				"Kia,Rio,2020,15000,100,5.5,petrol,maybe,FWD,red",
+				"Kia,Rio,2020,15000,100,5.5,petrol,true,FWD",
+				"Kia,,2020,15000,100,5.5,petrol,true,FWD,red",
+				"",
+				"\"Kia,Rio,2020,15000,100,5.5,petrol,true,FWD,red",
+				"Fiat,500,2019,12000,70,4.8,petrol,TRUE,FWD,white");
+
+		assertEquals(2, result.getInserted());
+		assertEquals(0, result.getUpdated());
+		assertEquals(6, result.getFailed());
+		assertEquals(42L, result.getCatalogVersion());
+		// Lines are 1-based and count the header; the blank line is skipped but counted
+		assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 9L),
+				result.getErrors().stream().map(CarImportResult.RowError::line).toList());
+		assertEquals("Invalid year: 20x1", result.getErrors().get(0).message());
+		assertEquals("price must be a non-negative number", result.getErrors().get(1).message());
+		assertEquals("Invalid compact: maybe", result.getErrors().get(2).message());
+		assertEquals("Expected 10 fields but found 9", result.getErrors().get(3).message());
+		assertEquals("model is required", result.getErrors().get(4).message());
+		assertEquals("Unterminated quoted field", result.getErrors().get(5).message());
+
+		ArgumentCaptor<Car> persisted = ArgumentCaptor.forClass(Car.class);
+		verify(entityManager, times(2)).persist(persisted.capture());
+		Car rolls = persisted.getAllValues().get(0);
+		assertEquals("Rolls, Royce", rolls.getBrand());
+		assertEquals("Ghost \"II\"", rolls.getModel());
+		assertEquals(563, rolls.getHorsePower());
+		assertFalse(rolls.isCompact());
+		assertTrue(persisted.getAllValues().get(1).isCompact());
+	}
+
+	@Test
+	void rejectsIdsOutsideUpsertModeAndUnknownCarsInIt() throws IOException {
+		String header = "id," + HEADER;
+		CarImportResult insertOnly = importCsv(header, "7,Kia,Rio,2020,15000,100,5.5,petrol,true,FWD,red");
+		assertEquals(1, insertOnly.getFailed());
+		assertEquals("id is only accepted in upsert mode", insertOnly.getErrors().get(0).message());
+
+		Car existing = new Car(8L, "Kia", "Rio", 2018, 12000, 90, 5.9, "petrol", true, "FWD", "blue");
+		when(carRepository.findAllById(any())).thenReturn(List.of(existing));
+		CarImportResult upsert = importService.importCars(input(header,
+				"7,Kia,Rio,2020,15000,100,5.5,petrol,true,FWD,red",
+				"8,Kia,Rio,2020,15000,100,5.5,petrol,true,FWD,green"), CarDataFormat.CSV, true);
+		assertEquals(1, upsert.getUpdated());
+		assertEquals(List.of(new CarImportResult.RowError(2, "Car 7 does not exist")), upsert.getErrors());
+		assertEquals("green", existing.getColor());
+		assertEquals(2020, existing.getYear());
+	}
+
+	@Test
+	void rejectsUnknownColumnsAndMissingHeader() throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> importCsv("brand,model,colour"));
+
+		CarImportResult noHeader = importService.importCars(input(), CarDataFormat.CSV, false);
+		assertEquals(0, noHeader.getFailed());
+		assertNull(noHeader.getCatalogVersion());
+		verifyNoInteractions(catalogVersionService, eventPublisher);
+	}
+
+	@Test
+	void rejectsMalformedJsonLines() throws IOException {
+		CarImportResult result = importService.importCars(input(
+				"{\"brand\":\"Kia\",\"model\":\"Rio\",\"year\":2020,\"price\":15000,\"horsePower\":100,"
+						+ "\"fuelConsumption\":5.5,\"fuelType\":\"petrol\",\"compact\":true,"
+						+ "\"drivetrainType\":\"FWD\",\"color\":\"red\"}",
+				"{\"brand\":\"Kia\",",
+				"null"), CarDataFormat.NDJSON, false);
+
+		assertEquals(1, result.getInserted());
+		assertEquals(2, result.getFailed());
+		assertEquals(2, result.getErrors().get(0).line());
+		assertTrue(result.getErrors().get(0).message().startsWith("Malformed JSON"));
+		assertEquals(new CarImportResult.RowError(3, "Empty row"), result.getErrors().get(1));
+	}
+
+	@Test
+	void bumpsTheVersionOnceAndPublishesOneBulkEventAcrossBatches() throws IOException {
+		String[] rows = new String[7];
+		rows[0] = HEADER;
+		for (int i = 1; i < rows.length; i++) {
+			rows[i] = "Kia,Rio" + i + ",2020,15000,100,5.5,petrol,true,FWD,red";
+		}
+
+		CarImportResult result = importCsv(rows);
+
+		assertEquals(6, result.getInserted());
+		assertEquals(42L, result.getCatalogVersion());
+		// Batches of two are flushed as the feed is read, the version comes last
+		verify(entityManager, atLeast(3)).flush();
+		verify(catalogVersionService, times(1)).bump();
+		verify(stampQuery, times(1)).setParameter("version", 42L);
+		verify(stampQuery, times(1)).executeUpdate();
+		ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+		verify(eventPublisher, times(1)).publishEvent(event.capture());
+		verifyNoMoreInteractions(eventPublisher);
+		CatalogChangedEvent changed = assertInstanceOf(CatalogChangedEvent.class, event.getValue());
+		assertTrue(changed.isBulk());
+		assertEquals(42L, changed.version());
+	}
+
+	@Test
+	void importThatWritesNothingLeavesTheVersionAlone() throws IOException {
+		CarImportResult result = importCsv(HEADER, "Kia,Rio,2020,15000,100,5.5,petrol,true,FWD");
+
+		assertEquals(1, result.getFailed());
+		assertNull(result.getCatalogVersion());
+		verify(catalogVersionService, never()).bump();
+		verifyNoInteractions(eventPublisher);
+	}
+
+	private CarImportResult importCsv(String... lines) throws IOException {
+		return importService.importCars(input(lines), CarDataFormat.CSV, false);
+	}
+
+	private static ByteArrayInputStream input(String... lines) {
+		return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,121 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogFilterIndexTest {
+
+	private static final AtomicLong SEED = new AtomicLong(20240610L);
+
+	@Test
+	void emptyCatalogHasNothingWithinAnyBudget() {
+		CatalogFilterIndex index = CarCatalogSnapshot.EMPTY.filterIndex();
+		assertEquals(0, index.countWithinBudget(Double.MAX_VALUE));
+		assertEquals(0, index.compactCount());
+		assertEquals(0, index.lowHorsePowerCount());
+		assertEquals(0, index.lowFuelConsumptionCount());
+	}
+
+	@RepeatedTest(30)
+	void matchesALinearScanOfTheSnapshot() {
+		Random random = new Random(SEED.getAndIncrement());
+		TreeMap<Long, Car> cars = randomCars(random, random.nextInt(300));
+		CarCatalogSnapshot catalog = CarCatalogSnapshot.of(new ArrayList<>(cars.values()), 1L);
+		assertMatchesLinearScan(catalog, random);
+	}
+
+	@RepeatedTest(30)
+	void indexDerivedFromAChangeMatchesALinearScan() {
+		Random random = new Random(SEED.getAndIncrement());
+		TreeMap<Long, Car> cars = randomCars(random, random.nextInt(200));
+		CarCatalogSnapshot catalog = CarCatalogSnapshot.of(new ArrayList<>(cars.values()), 1L);
+		for (int step = 0; step < 40; step++) {
+			long id = 1 + random.nextInt(400);
+			Car after = random.nextInt(3) == 0 ? null : randomCar(random, id);
+			catalog = catalog.withChange(id, after, catalog.version() + 1);
+			assertMatchesLinearScan(catalog, random);
+		}
+	}
+
+	private static void assertMatchesLinearScan(CarCatalogSnapshot catalog, Random random) {
+		CatalogFilterIndex index = catalog.filterIndex();
+		int n = catalog.size();
+
+		// The permutation lists every position once, by ascending price
+		boolean[] seen = new boolean[n];
+		for (int rank = 0; rank < n; rank++) {
+			int position = index.positionByPrice(rank);
+			assertTrue(!seen[position], "position listed twice: " + position);
+			seen[position] = true;
+			if (rank > 0) {
+				assertTrue(catalog.price(index.positionByPrice(rank - 1)) <= catalog.price(position));
+			}
+		}
+
+		// Budgets below every price, above every price, on exact prices and in between
+		List<Double> budgets = new ArrayList<>(List.of(0.0, -1.0, Double.MAX_VALUE));
+		for (int b = 0; b < 20 && n > 0; b++) {
+			double price = catalog.price(random.nextInt(n));
+			budgets.add(price);
+			budgets.add(Math.nextDown(price));
+			budgets.add(random.nextDouble() * 250000);
+		}
+		for (double budget : budgets) {
+			int expected = 0;
+			for (int i = 0; i < n; i++) {
+				if (catalog.price(i) <= budget) {
+					expected++;
+				}
+			}
+			assertEquals(expected, index.countWithinBudget(budget), "cars within budget " + budget);
+		}
+
+		int[] brandCounts = new int[catalog.brandCount()];
+		for (int i = 0; i < n; i++) {
+			assertEquals(catalog.isCompact(i), index.compact().get(i));
+			assertEquals(catalog.horsePower(i) <= CatalogFilterIndex.NOVICE_MAX_HORSE_POWER, index.lowHorsePower().get(i));
+			assertEquals(catalog.fuelConsumption(i) <= CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION,
+					index.lowFuelConsumption().get(i));
+			for (int code = 0; code < catalog.brandCount(); code++) {
+				assertEquals(catalog.brandCode(i) == code, index.brand(code).get(i));
+			}
+			brandCounts[catalog.brandCode(i)]++;
+		}
+		assertEquals(index.compact().cardinality(), index.compactCount());
+		assertEquals(index.lowHorsePower().cardinality(), index.lowHorsePowerCount());
+		assertEquals(index.lowFuelConsumption().cardinality(), index.lowFuelConsumptionCount());
+		for (int code = 0; code < brandCounts.length; code++) {
+			assertEquals(brandCounts[code], index.brandCount(code));
+		}
+	}
+
+	private static TreeMap<Long, Car> randomCars(Random random, int size) {
+		TreeMap<Long, Car> cars = new TreeMap<>();
+		for (int i = 0; i < size; i++) {
+			long id = 1 + random.nextInt(400);
+			cars.put(id, randomCar(random, id));
+		}
+		return cars;
+	}
+
+	private static Car randomCar(Random random, long id) {
+		// Repeated prices and values on the filter limits exercise ties and boundaries
+		double price = random.nextBoolean() ? 1000 * (1 + random.nextInt(50)) : 500 + random.nextDouble() * 200000;
+		int horsePower = random.nextInt(4) == 0 ? CatalogFilterIndex.NOVICE_MAX_HORSE_POWER : 40 + random.nextInt(400);
+		double fuelConsumption = random.nextInt(4) == 0
+				? CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION
+				: 2 + random.nextDouble() * 18;
+		return new Car(id, "Brand" + random.nextInt(6), "Model" + id, 1995 + random.nextInt(30),
+				price, horsePower, fuelConsumption, "petrol", random.nextBoolean(), "FWD", "red");
+	}
+}
@@ -0,0 +1,125 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.model.UserPreferences;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilterPlanTest {
+
+	private static final String[] EXPERIENCES = {"novice", "intermediate", "expert", "unknown"};
+	private static final String[] USE_CASES = {"city", "highway", "mixed", "offroad", "unknown"};
+	private static final String[] BRANDS = {"Audi", "BMW", "Fiat", "Ford", "Kia", "Volvo"};
+
+	private static final AtomicLong SEED = new AtomicLong(20240620L);
+
+	@RepeatedTest(40)
+	void selectsExactlyTheCarsALinearFilterKeeps() {
+		Random random = new Random(SEED.getAndIncrement());
+		CarCatalogSnapshot catalog = randomCatalog(random, random.nextInt(400));
+		for (int round = 0; round < 50; round++) {
+			assertMatchesLinearFilter(catalog, randomPreferences(random, catalog));
+		}
+	}
+
+	@Test
+	void filtersMatchingEveryCarKeepTheWholeCatalog() {
+		CarCatalogSnapshot catalog = randomCatalog(new Random(1), 200);
+		UserPreferences prefs = new UserPreferences(Double.MAX_VALUE, "expert", "highway", List.of(), false);
+		assertArrayEquals(IntStream.range(0, catalog.size()).toArray(), selected(catalog, prefs));
+		assertMatchesLinearFilter(catalog, prefs);
+
+		UserPreferences allBrands = new UserPreferences(Double.MAX_VALUE, "expert", "mixed", List.of(BRANDS), false);
+		assertEquals(catalog.size(), selected(catalog, allBrands).length);
+	}
+
+	@Test
+	void filtersMatchingNoCarSelectNothing() {
+		CarCatalogSnapshot catalog = randomCatalog(new Random(2), 200);
+		assertMatchesLinearFilter(catalog, new UserPreferences(0.0, "expert", "mixed", null, false));
+		assertMatchesLinearFilter(catalog, new UserPreferences(200000.0, "expert", "mixed", List.of("Lada"), false));
+		assertEquals(0, selected(catalog, new UserPreferences(0.0, "novice", "city", null, true)).length);
+		assertEquals(0, selected(CarCatalogSnapshot.EMPTY,
+				new UserPreferences(200000.0, "expert", "mixed", null, false)).length);
+	}
+
+	private static void assertMatchesLinearFilter(CarCatalogSnapshot catalog, UserPreferences prefs) {
+		FilterPlan plan = FilterPlan.compile(prefs, catalog);
+		int[] expected = IntStream.range(0, catalog.size()).filter(i -> passes(catalog, i, prefs)).toArray();
+		assertArrayEquals(expected, selected(catalog, prefs), () -> "select() differs for " + prefs);
+		for (int i = 0; i < catalog.size(); i++) {
+			assertEquals(passes(catalog, i, prefs), plan.admits(catalog, i), "admits() differs for " + prefs + " at " + i);
+		}
+	}
+
+	private static int[] selected(CarCatalogSnapshot catalog, UserPreferences prefs) {
+		int[] positions = FilterPlan.compile(prefs, catalog).select(catalog);
+		Arrays.sort(positions);
+		return positions;
+	}
+
+	/**
+	 * The recommendation filters spelled out one car at a time
+	 */
+	private static boolean passes(CarCatalogSnapshot catalog, int i, UserPreferences prefs) {
+		if (catalog.price(i) > prefs.getBudget()) {
+			return false;
+		}
+		if ("novice".equals(prefs.getExperience()) && catalog.horsePower(i) > CatalogFilterIndex.NOVICE_MAX_HORSE_POWER) {
+			return false;
+		}
+		if ("city".equals(prefs.getUseCase()) && !catalog.isCompact(i)) {
+			return false;
+		}
+		if (prefs.getFuelEconomyPriority()
+				&& catalog.fuelConsumption(i) > CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION) {
+			return false;
+		}
+		List<String> brands = prefs.getBrandPreferences();
+		return brands == null || brands.isEmpty() || brands.contains(catalog.brand(i));
+	}
+
+	private static UserPreferences randomPreferences(Random random, CarCatalogSnapshot catalog) {
+		double budget = switch (random.nextInt(5)) {
+			case 0 -> 0.0;
+			case 1 -> Double.MAX_VALUE;
+			case 2 -> catalog.size() > 0 ? catalog.price(random.nextInt(catalog.size())) : 1000.0;
+			default -> random.nextDouble() * 220000;
+		};
+		List<String> brands = null;
+		if (random.nextBoolean()) {
+			brands = new ArrayList<>();
+			int count = random.nextInt(4);
+			for (int b = 0; b < count; b++) {
+				// Unknown and repeated brands included
+				brands.add(random.nextInt(6) == 0 ? "Lada" : BRANDS[random.nextInt(BRANDS.length)]);
+			}
+		}
+		return new UserPreferences(budget, EXPERIENCES[random.nextInt(EXPERIENCES.length)],
+				USE_CASES[random.nextInt(USE_CASES.length)], brands, random.nextBoolean());
+	}
+
+	private static CarCatalogSnapshot randomCatalog(Random random, int size) {
+		List<Car> cars = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			double price = random.nextBoolean() ? 1000 * (1 + random.nextInt(50)) : 500 + random.nextDouble() * 200000;
+			int horsePower = random.nextInt(4) == 0 ? CatalogFilterIndex.NOVICE_MAX_HORSE_POWER : 40 + random.nextInt(400);
+			double fuelConsumption = random.nextInt(4) == 0
+					? CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION
+					: 2 + random.nextDouble() * 18;
+			cars.add(new Car((long) i + 1, BRANDS[random.nextInt(BRANDS.length)], "Model" + i, 1995 + random.nextInt(30),
+					price, horsePower, fuelConsumption, "petrol", random.nextBoolean(), "FWD", "red"));
+		}
+		return CarCatalogSnapshot.of(cars, 1L);
+	}
+}
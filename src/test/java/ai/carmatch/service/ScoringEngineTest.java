@@ -0,0 +1,135 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.model.UserPreferences;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScoringEngineTest {
+
+	private static final String[] EXPERIENCES = {"novice", "intermediate", "expert"};
+	private static final String[] USE_CASES = {"city", "highway", "mixed", "offroad"};
+	private static final int[] HORSE_POWER_TIERS = {100, 150, 200, 250};
+
+	private static final AtomicLong SEED = new AtomicLong(20240601L);
+
+	private static ScoringEngine vector;
+	private final ScoringEngine scalar = new ScalarScoringEngine();
+
+	@BeforeAll
+	static void createVectorEngine() {
+		vector = ScoringEngine.create(true);
+	}
+
+	@Test
+	void vectorEngineIsSelectedWhenModuleIsPresent() {
+		assumeTrue(ModuleLayer.boot().findModule(ScoringEngine.VECTOR_MODULE).isPresent());
+		assertInstanceOf(VectorScoringEngine.class, vector);
+	}
+
+	@Test
+	void scalarEngineIsSelectedWhenVectorizationIsDisabled() {
+		assertInstanceOf(ScalarScoringEngine.class, ScoringEngine.create(false));
+	}
+
+	@RepeatedTest(50)
+	void enginesAgreeOnRandomCatalogs() {
+		assumeTrue(vector instanceof VectorScoringEngine, "Vector API not available");
+		Random random = new Random(SEED.getAndIncrement());
+		CarCatalogSnapshot catalog = randomCatalog(random, 1 + random.nextInt(500));
+
+		for (int round = 0; round < 20; round++) {
+			UserPreferences prefs = randomPreferences(random);
+			int[] positions = randomPositions(random, catalog.size());
+			assertSameScores(catalog, positions, prefs);
+		}
+	}
+
+	@Test
+	void enginesAgreeOnEveryPreferenceCombinationAndTailLength() {
+		assumeTrue(vector instanceof VectorScoringEngine, "Vector API not available");
+		Random random = new Random(7);
+		CarCatalogSnapshot catalog = randomCatalog(random, 300);
+
+		for (String experience : EXPERIENCES) {
+			for (String useCase : USE_CASES) {
+				for (boolean fuelEconomyPriority : new boolean[]{false, true}) {
+					UserPreferences prefs = new UserPreferences(
+							1000.0 + random.nextInt(199001), experience, useCase, null, fuelEconomyPriority);
+					for (int count = 0; count <= 17; count++) {
+						int[] positions = new int[count];
+						for (int k = 0; k < count; k++) {
+							positions[k] = random.nextInt(catalog.size());
+						}
+						assertSameScores(catalog, positions, prefs);
+					}
+				}
+			}
+		}
+	}
+
+	private void assertSameScores(CarCatalogSnapshot catalog, int[] positions, UserPreferences prefs) {
+		double[] scalarScores = new double[positions.length];
+		double[] vectorScores = new double[positions.length];
+		// Score in two ranges, so lanes start at an arbitrary offset
+		int from = positions.length / 3;
+		scalar.score(catalog, positions, 0, positions.length, prefs, scalarScores);
+		vector.score(catalog, positions, 0, from, prefs, vectorScores);
+		vector.score(catalog, positions, from, positions.length, prefs, vectorScores);
+		for (int k = 0; k < positions.length; k++) {
+			int position = positions[k];
+			long expected = Double.doubleToRawLongBits(RecommendationService.calculateScore(catalog, position, prefs));
+			assertEquals(expected, Double.doubleToRawLongBits(scalarScores[k]),
+					() -> "Scalar score differs for " + prefs + " at position " + position);
+			assertEquals(expected, Double.doubleToRawLongBits(vectorScores[k]),
+					() -> "Vector score differs for " + prefs + " at position " + position);
+		}
+	}
+
+	private static CarCatalogSnapshot randomCatalog(Random random, int size) {
+		List<Car> cars = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			// Hit the filter and tier boundaries exactly as well as random values
+			int horsePower = random.nextInt(4) == 0
+					? HORSE_POWER_TIERS[random.nextInt(HORSE_POWER_TIERS.length)] + random.nextInt(3) - 1
+					: 40 + random.nextInt(500);
+			double fuelConsumption = switch (random.nextInt(6)) {
+				case 0 -> 10.0;
+				case 1 -> 15.0;
+				case 2 -> 2 + random.nextInt(20);
+				default -> 1 + random.nextDouble() * 24;
+			};
+			double price = random.nextInt(5) == 0
+					? 1000 * (1 + random.nextInt(200))
+					: 500 + random.nextDouble() * 250000;
+			cars.add(new Car((long) i + 1, "Brand" + random.nextInt(8), "Model" + i, 1990 + random.nextInt(36),
+					price, horsePower, fuelConsumption, "petrol", random.nextBoolean(), "FWD", "red"));
+		}
+		return CarCatalogSnapshot.of(cars, 1L);
+	}
+
+	private static UserPreferences randomPreferences(Random random) {
+		double budget = random.nextBoolean() ? 1000.0 * (1 + random.nextInt(200)) : 1000 + random.nextDouble() * 199000;
+		String experience = random.nextInt(10) == 0 ? "unknown" : EXPERIENCES[random.nextInt(EXPERIENCES.length)];
+		String useCase = random.nextInt(10) == 0 ? "unknown" : USE_CASES[random.nextInt(USE_CASES.length)];
+		return new UserPreferences(budget, experience, useCase, null, random.nextBoolean());
+	}
+
+	private static int[] randomPositions(Random random, int catalogSize) {
+		int[] positions = new int[random.nextInt(catalogSize + 1)];
+		for (int k = 0; k < positions.length; k++) {
+			positions[k] = random.nextInt(catalogSize);
+		}
+		return positions;
+	}
+}
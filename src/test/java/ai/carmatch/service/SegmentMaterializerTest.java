@@ -0,0 +1,110 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import ai.carmatch.model.UserPreferences;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentMaterializerTest {
+
+	private static final String[] EXPERIENCES = {"novice", "intermediate", "expert"};
+	private static final String[] USE_CASES = {"city", "highway", "mixed", "offroad"};
+	private static final double BUCKET_WIDTH = 5000;
+	private static final int DEPTH = 20;
+
+	private static final AtomicLong SEED = new AtomicLong(20240815L);
+
+	@RepeatedTest(10)
+	void changesAppliedInPlaceMatchAFreshMaterialization() {
+		Random random = new Random(SEED.getAndIncrement());
+		CarCatalogService carCatalogService = mock(CarCatalogService.class);
+		when(carCatalogService.isInMemory()).thenReturn(true);
+
+		TreeMap<Long, Car> cars = new TreeMap<>();
+		int size = random.nextInt(400);
+		for (int i = 0; i < size; i++) {
+			long id = 1 + random.nextInt(600);
+			cars.put(id, randomCar(random, id));
+		}
+		CarCatalogSnapshot catalog = CarCatalogSnapshot.of(new ArrayList<>(cars.values()), 1L);
+		SegmentMaterializer materializer = materializer(carCatalogService);
+		ReflectionTestUtils.invokeMethod(materializer, "rebuild", catalog);
+
+		for (int step = 0; step < 60; step++) {
+			// Ids past the initial range insert, existing ids update or delete
+			long id = 1 + random.nextInt(700);
+			Car before = cars.get(id);
+			Car after = random.nextInt(3) == 0 ? null : randomCar(random, id);
+			if (after == null) {
+				cars.remove(id);
+			} else {
+				cars.put(id, after);
+			}
+			CarCatalogSnapshot next = catalog.withChange(id, after, catalog.version() + 1);
+			materializer.onCatalogRefreshed(new CatalogRefreshedEvent(next,
+					new CatalogChangedEvent(next.version(), id, before, after)));
+			catalog = next;
+
+			SegmentMaterializer fresh = materializer(carCatalogService);
+			ReflectionTestUtils.invokeMethod(fresh, "rebuild", catalog);
+			assertSameCandidates(fresh, materializer, catalog, step);
+		}
+	}
+
+	private static void assertSameCandidates(SegmentMaterializer expected, SegmentMaterializer actual,
+											 CarCatalogSnapshot catalog, int step) {
+		for (String experience : EXPERIENCES) {
+			for (String useCase : USE_CASES) {
+				for (boolean fuelEconomyPriority : new boolean[]{false, true}) {
+					// Both edges and the middle of every budget bucket
+					for (double low = SegmentMaterializer.MIN_BUDGET; low < SegmentMaterializer.MAX_BUDGET;
+						 low += BUCKET_WIDTH) {
+						double high = Math.min(low + BUCKET_WIDTH, SegmentMaterializer.MAX_BUDGET);
+						for (double budget : new double[]{low, (low + high) / 2, high}) {
+							UserPreferences prefs = new UserPreferences(
+									budget, experience, useCase, null, fuelEconomyPriority);
+							SegmentMaterializer.Candidates want = expected.lookup(catalog, prefs, DEPTH);
+							SegmentMaterializer.Candidates got = actual.lookup(catalog, prefs, DEPTH);
+							String context = "step " + step + ", " + prefs;
+							assertNotNull(got, () -> "No in-place materialization at " + context);
+							assertArrayEquals(want.positions(), got.positions(), () -> "Candidates differ at " + context);
+							assertEquals(want.matchCount(), got.matchCount(), () -> "Match count differs at " + context);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static SegmentMaterializer materializer(CarCatalogService carCatalogService) {
+		SegmentMaterializer materializer = new SegmentMaterializer(carCatalogService);
+		ReflectionTestUtils.setField(materializer, "enabled", true);
+		ReflectionTestUtils.setField(materializer, "bucketWidth", BUCKET_WIDTH);
+		ReflectionTestUtils.setField(materializer, "depth", DEPTH);
+		return materializer;
+	}
+
+	private static Car randomCar(Random random, long id) {
+		// Prices on bucket edges and repeated prices exercise ties and boundary buckets
+		double price = random.nextInt(3) == 0
+				? BUCKET_WIDTH * (1 + random.nextInt(40))
+				: 500 + random.nextDouble() * 210000;
+		int horsePower = random.nextInt(4) == 0 ? CatalogFilterIndex.NOVICE_MAX_HORSE_POWER : 40 + random.nextInt(400);
+		double fuelConsumption = random.nextInt(4) == 0
+				? CatalogFilterIndex.ECONOMY_MAX_FUEL_CONSUMPTION
+				: 2 + random.nextDouble() * 18;
+		return new Car(id, "Brand" + random.nextInt(5), "Model" + id, 1995 + random.nextInt(30),
+				price, horsePower, fuelConsumption, "petrol", random.nextBoolean(), "FWD", "red");
+	}
+}
@@ -0,0 +1,48 @@
+package ai.carmatch.service;
+
+import ai.carmatch.model.Car;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimilarCarIndexTest {
+
+	@Test
+	void excludesTheQueryCarAndReturnsEveryOtherCarWhenKExceedsTheCatalog() {
+		List<Car> cars = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			cars.add(new Car((long) i + 1, "Kia", "Model" + i, 2015 + i, 10000 + i * 1000, 100 + i * 10, 6.0,
+					"petrol", true, "FWD", "red"));
+		}
+		SimilarCarIndex index = index(CarCatalogSnapshot.of(cars, 1L));
+
+		List<Car> similar = index.findSimilar(3, 50).orElseThrow();
+
+		assertEquals(5, similar.size());
+		assertTrue(similar.stream().noneMatch(car -> car.getId() == 3));
+		// Neighbours in feature space come first
+		assertTrue(List.of(2L, 4L).contains(similar.get(0).getId()));
+	}
+
+	@Test
+	void unknownCarHasNoSimilarCars() {
+		SimilarCarIndex index = index(CarCatalogSnapshot.of(List.of(
+				new Car(1L, "Kia", "Rio", 2020, 15000, 100, 5.5, "petrol", true, "FWD", "red")), 1L));
+		assertEquals(Optional.empty(), index.findSimilar(2, 5));
+		assertEquals(0, index.findSimilar(1, 5).orElseThrow().size());
+	}
+
+	private static SimilarCarIndex index(CarCatalogSnapshot catalog) {
+		CarCatalogService carCatalogService = mock(CarCatalogService.class);
+		when(carCatalogService.isInMemory()).thenReturn(true);
+		when(carCatalogService.current()).thenReturn(catalog);
+		return new SimilarCarIndex(carCatalogService, null);
+	}
+}
@@ -0,0 +1,148 @@
+package ai.carmatch.service;
+
+import ai.carmatch.dto.RecommendationCursor;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKSelectorTest {
+
+	private static final Comparator<Candidate> RANKING = Comparator.comparingDouble(Candidate::score).reversed()
+			.thenComparingLong(Candidate::id);
+
+	private static final AtomicLong SEED = new AtomicLong(20240702L);
+
+	private record Candidate(double score, long id, int position) {
+	}
+
+	@Test
+	void ranksByScoreDescendingThenIdAscending() {
+		TopKSelector topK = new TopKSelector(4);
+		topK.offer(50.0, 7, 0);
+		topK.offer(80.0, 9, 1);
+		topK.offer(50.0, 3, 2);
+		topK.offer(80.0, 2, 3);
+		topK.offer(50.0, 5, 4);
+		topK.offer(10.0, 1, 5);
+		topK.rank();
+
+		assertEquals(4, topK.size());
+		long[] expectedIds = {2, 9, 3, 5};
+		int[] expectedPositions = {3, 1, 2, 4};
+		for (int rank = 0; rank < expectedIds.length; rank++) {
+			assertEquals(expectedIds[rank], topK.id(rank));
+			assertEquals(expectedPositions[rank], topK.position(rank));
+		}
+		assertTrue(topK.hasMore());
+	}
+
+	@Test
+	void reportsNoMoreWhenEverythingFits() {
+		TopKSelector topK = new TopKSelector(3);
+		topK.offer(1.0, 1, 0);
+		topK.offer(2.0, 2, 1);
+		assertFalse(topK.isFull());
+		assertFalse(topK.hasMore());
+	}
+
+	@Test
+	void rejectsNonPositiveK() {
+		assertThrows(IllegalArgumentException.class, () -> new TopKSelector(0));
+	}
+
+	@RepeatedTest(50)
+	void keepsTheBestKOfRandomCandidates() {
+		Random random = new Random(SEED.getAndIncrement());
+		List<Candidate> candidates = randomCandidates(random, random.nextInt(300));
+		int k = 1 + random.nextInt(40);
+
+		TopKSelector topK = new TopKSelector(k);
+		candidates.forEach(candidate -> topK.offer(candidate.score(), candidate.id(), candidate.position()));
+
+		assertRanked(candidates.stream().sorted(RANKING).limit(k).toList(), topK.rank());
+		assertEquals(candidates.size() > k, topK.hasMore());
+	}
+
+	@RepeatedTest(50)
+	void mergingPartialSelectorsMatchesOneSelector() {
+		Random random = new Random(SEED.getAndIncrement());
+		List<Candidate> candidates = randomCandidates(random, random.nextInt(300));
+		int k = 1 + random.nextInt(40);
+
+		// Split into uneven partitions, as the parallel scorer does, and fold them together
+		int partitions = 1 + random.nextInt(6);
+		List<TopKSelector> selectors = new ArrayList<>();
+		for (int p = 0; p < partitions; p++) {
+			selectors.add(new TopKSelector(k));
+		}
+		for (Candidate candidate : candidates) {
+			selectors.get(random.nextInt(partitions)).offer(candidate.score(), candidate.id(), candidate.position());
+		}
+		TopKSelector merged = selectors.get(0);
+		for (int p = 1; p < partitions; p++) {
+			merged.merge(selectors.get(p));
+		}
+
+		assertRanked(candidates.stream().sorted(RANKING).limit(k).toList(), merged.rank());
+		assertEquals(candidates.size() > k, merged.hasMore());
+	}
+
+	@RepeatedTest(50)
+	void cursorPagesCoverEveryCandidateOnceDespiteTies() {
+		Random random = new Random(SEED.getAndIncrement());
+		List<Candidate> candidates = randomCandidates(random, random.nextInt(200));
+		int limit = 1 + random.nextInt(12);
+
+		List<Candidate> paged = new ArrayList<>();
+		String token = null;
+		do {
+			RecommendationCursor after = RecommendationCursor.decode(token);
+			TopKSelector topK = new TopKSelector(limit);
+			for (Candidate candidate : candidates) {
+				if (after == null || after.admits(candidate.score(), candidate.id())) {
+					topK.offer(candidate.score(), candidate.id(), candidate.position());
+				}
+			}
+			topK.rank();
+			for (int rank = 0; rank < topK.size(); rank++) {
+				paged.add(new Candidate(topK.score(rank), topK.id(rank), topK.position(rank)));
+			}
+			int last = topK.size() - 1;
+			token = topK.hasMore() ? new RecommendationCursor(topK.score(last), topK.id(last)).encode() : null;
+		} while (token != null);
+
+		assertEquals(candidates.stream().sorted(RANKING).toList(), paged);
+	}
+
+	private static void assertRanked(List<Candidate> expected, TopKSelector topK) {
+		assertEquals(expected.size(), topK.size());
+		for (int rank = 0; rank < expected.size(); rank++) {
+			Candidate candidate = expected.get(rank);
+			assertEquals(candidate.score(), topK.score(rank), "score at rank " + rank);
+			assertEquals(candidate.id(), topK.id(rank), "id at rank " + rank);
+			assertEquals(candidate.position(), topK.position(rank), "position at rank " + rank);
+		}
+	}
+
+	private static List<Candidate> randomCandidates(Random random, int size) {
+		// Few distinct scores, so many candidates tie and only the id orders them
+		List<Candidate> candidates = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			double score = random.nextBoolean() ? random.nextInt(5) * 12.5 : random.nextDouble() * 100;
+			candidates.add(new Candidate(score, 1 + i * 3L, i));
+		}
+		Collections.shuffle(candidates, random);
+		return candidates;
+	}
+}